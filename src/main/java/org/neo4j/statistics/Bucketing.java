@@ -0,0 +1,25 @@
+package org.neo4j.statistics;
+
+public abstract class Bucketing
+{
+    private static final String LOG_PREFIX = "log:";
+
+    public abstract long getChunkKeyForCount( long count );
+
+    public abstract long getCountBaseForChunkKey( long key );
+
+    public abstract long getEndOfChunkForChunkKey( long key );
+
+    /**
+     * Parses either a linear chunk size, like "5", or log-linear buckets with a number of significant digits,
+     * like "log:2".
+     */
+    public static Bucketing parse( String spec )
+    {
+        if ( spec.startsWith( LOG_PREFIX ) )
+        {
+            return new LogLinearBucketing( Integer.valueOf( spec.substring( LOG_PREFIX.length() ) ) );
+        }
+        return new LinearBucketing( Long.valueOf( spec ) );
+    }
+}
@@ -33,6 +33,16 @@ public class Chunk<SAMPLE_TYPE>
         }
     }
 
+    public void merge( Chunk<SAMPLE_TYPE> other )
+    {
+        count += other.count;
+        for ( SAMPLE_TYPE sample : other.samples )
+        {
+            if ( samples.size() >= 3 ) break;
+            samples.add( sample );
+        }
+    }
+
     public List<SAMPLE_TYPE> getSamples()
     {
         return samples;
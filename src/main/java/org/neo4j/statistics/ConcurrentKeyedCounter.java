@@ -0,0 +1,75 @@
+package org.neo4j.statistics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread-safe counterpart of {@link KeyedCounter} that many threads can update at once, whose {@link #snapshot()}
+ * returns a plain {@link KeyedCounter}. Every key has a fixed number of striped cells, like a LongAdder, and a thread
+ * adds to the cell its id hashes to, so threads rarely contend on a cell. Memory and the cost of a read depend on the
+ * number of processors, not on how many threads have ever counted.
+ */
+public class ConcurrentKeyedCounter<KEY>
+{
+    private static final int STRIPES = stripes( Runtime.getRuntime().availableProcessors() );
+    // Cells are a cache line apart so that stripes updated by different processors do not share a line
+    private static final int PADDING = 8;
+
+    private final ConcurrentMap<KEY, AtomicLongArray> cells = new ConcurrentHashMap<KEY, AtomicLongArray>();
+
+    static int stripes( int processors )
+    {
+        return Math.min( 64, Integer.highestOneBit( Math.max( 1, processors * 2 - 1 ) ) << 1 );
+    }
+
+    public void incForKey( KEY key )
+    {
+        incForKey( key, 1 );
+    }
+
+    public void incForKey( KEY key, long increment )
+    {
+        AtomicLongArray keyCells = cells.get( key );
+        if ( keyCells == null )
+        {
+            AtomicLongArray newCells = new AtomicLongArray( STRIPES * PADDING );
+            keyCells = cells.putIfAbsent( key, newCells );
+            if ( keyCells == null ) keyCells = newCells;
+        }
+        keyCells.addAndGet( stripe() * PADDING, increment );
+    }
+
+    private static int stripe()
+    {
+        long id = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+        return (int) ( id >>> 32 ) & ( STRIPES - 1 );
+    }
+
+    public long getForKey( KEY key )
+    {
+        AtomicLongArray keyCells = cells.get( key );
+        return keyCells == null ? 0 : sum( keyCells );
+    }
+
+    public KeyedCounter<KEY> snapshot()
+    {
+        KeyedCounter<KEY> snapshot = new KeyedCounter<KEY>();
+        for ( Map.Entry<KEY, AtomicLongArray> cellEntry : cells.entrySet() )
+        {
+            snapshot.incForKey( cellEntry.getKey(), sum( cellEntry.getValue() ) );
+        }
+        return snapshot;
+    }
+
+    private static long sum( AtomicLongArray keyCells )
+    {
+        long sum = 0;
+        for ( int stripe = 0; stripe < STRIPES; stripe++ )
+        {
+            sum += keyCells.get( stripe * PADDING );
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,89 @@
+package org.neo4j.statistics;
+
+/**
+ * Approximate counts of 64-bit hashes in a fixed depth x width table. An estimate never undercounts. It overcounts
+ * by more than e / width times the total count with a probability of at most e^-depth. The depth hash functions
+ * are derived from the two halves of the one 64-bit hash, as in Kirsch and Mitzenmacher.
+ */
+public class CountMinSketch
+{
+    private final int width;
+    private final int depth;
+    private final long[] table;
+    private long totalCount;
+
+    public CountMinSketch( int width, int depth )
+    {
+        checkDimensions( width, depth );
+        this.width = width;
+        this.depth = depth;
+        this.table = new long[width * depth];
+    }
+
+    /**
+     * @throws IllegalArgumentException if sketches cannot be created with the given width and depth.
+     */
+    public static void checkDimensions( int width, int depth )
+    {
+        if ( width < 1 || depth < 1 )
+        {
+            throw new IllegalArgumentException( "Width and depth must be positive, were " + width + " and " + depth );
+        }
+    }
+
+    /**
+     * @return the estimated count of the hash after adding to it.
+     */
+    public long add( long hash, long count )
+    {
+        totalCount += count;
+        long estimate = Long.MAX_VALUE;
+        for ( int row = 0; row < depth; row++ )
+        {
+            int cell = cell( hash, row );
+            table[cell] += count;
+            if ( table[cell] < estimate ) estimate = table[cell];
+        }
+        return estimate;
+    }
+
+    public long estimate( long hash )
+    {
+        long estimate = Long.MAX_VALUE;
+        for ( int row = 0; row < depth; row++ )
+        {
+            long count = table[cell( hash, row )];
+            if ( count < estimate ) estimate = count;
+        }
+        return estimate;
+    }
+
+    private int cell( long hash, int row )
+    {
+        int combined = (int) hash + row * (int) ( hash >>> 32 );
+        return row * width + ( combined & Integer.MAX_VALUE ) % width;
+    }
+
+    public long getTotalCount()
+    {
+        return totalCount;
+    }
+
+    /**
+     * @return how much an estimate may overcount, with a probability of at least {@link #getConfidence()}.
+     */
+    public long getErrorBound()
+    {
+        return (long) Math.ceil( Math.E / width * totalCount );
+    }
+
+    public double getConfidence()
+    {
+        return 1 - Math.exp( -depth );
+    }
+
+    public int sizeInBytes()
+    {
+        return table.length * 8;
+    }
+}
@@ -2,19 +2,19 @@ package org.neo4j.statistics;
 
 public class Counter
 {
-    private int count;
+    private long count;
 
     public Counter()
     {
         this( 0 );
     }
 
-    public Counter( int initialCount )
+    public Counter( long initialCount )
     {
         this.count = initialCount;
     }
 
-    public int getCount()
+    public long getCount()
     {
         return count;
     }
@@ -24,7 +24,7 @@ public class Counter
         count++;
     }
 
-    public void add( int count )
+    public void add( long count )
     {
         this.count += count;
     }
@@ -45,7 +45,7 @@ public class Counter
     @Override
     public int hashCode()
     {
-        return count;
+        return (int) ( count ^ ( count >>> 32 ) );
     }
 
     @Override
@@ -54,7 +54,7 @@ public class Counter
         return "" + count;
     }
 
-    public void set( int value )
+    public void set( long value )
     {
         this.count = value;
     }
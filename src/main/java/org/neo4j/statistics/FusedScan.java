@@ -0,0 +1,140 @@
+package org.neo4j.statistics;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.statistics.snapshot.SnapshotSource;
+import org.neo4j.statistics.snapshot.StatisticsSnapshot;
+import org.neo4j.statistics.store.StoreAccess;
+import org.neo4j.tooling.GlobalGraphOperations;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class FusedScan implements StatisticsProcessor, SnapshotSource
+{
+    private GraphDatabaseService graphDb;
+    private PrintStream out;
+    private Map<String, StatisticsProcessor> processors = new LinkedHashMap<String, StatisticsProcessor>();
+    private List<ScanVisitor> visitorList = new ArrayList<ScanVisitor>();
+    private ScanVisitor[] visitors = new ScanVisitor[0];
+    private volatile boolean shouldAbort;
+    private final Progress progress = new Progress();
+    private final SafePoint safePoint = new SafePoint( this );
+
+    public FusedScan( GraphDatabaseService graphDb, PrintStream out )
+    {
+        this.graphDb = graphDb;
+        this.out = out;
+    }
+
+    public void add( String name, StatisticsProcessor processor )
+    {
+        if ( !( processor instanceof ScanVisitor ) )
+        {
+            throw new IllegalArgumentException( "Processor " + name + " does not support fused scans." );
+        }
+        String unfusableOption = ( (ScanVisitor) processor ).getUnfusableOption();
+        if ( unfusableOption != null )
+        {
+            throw new IllegalArgumentException( "Processor " + name + " cannot be fused with option " + unfusableOption + "." );
+        }
+        processors.put( name, processor );
+        visitorList.add( (ScanVisitor) processor );
+        visitors = visitorList.toArray( new ScanVisitor[visitorList.size()] );
+    }
+
+    @Override
+    public void process()
+    {
+        safePoint.enter();
+        try
+        {
+            scan();
+        }
+        finally
+        {
+            safePoint.exit();
+        }
+    }
+
+    private void scan()
+    {
+        progress.start( new StoreAccess( graphDb ).getHighId( Node.class ) );
+        for ( Node node : GlobalGraphOperations.at( graphDb ).getAllNodes() )
+        {
+            if ( shouldAbort ) break;
+            progress.set( node.getId() + 1 );
+            safePoint.reached();
+            for ( ScanVisitor visitor : visitors )
+            {
+                visitor.visitNode( node );
+            }
+            // Each relationship is visited once, from its start node
+            for ( Relationship rel : node.getRelationships( Direction.OUTGOING ) )
+            {
+                for ( ScanVisitor visitor : visitors )
+                {
+                    visitor.visitRelationship( rel );
+                }
+            }
+        }
+        for ( ScanVisitor visitor : visitors )
+        {
+            visitor.scanFinished();
+        }
+    }
+
+    @Override
+    public void reportProgress()
+    {
+        out.print( safePoint.snapshot() );
+    }
+
+    /**
+     * The fused processors are only mutated by this scan, so their results are rendered together at its safe points.
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder result = new StringBuilder();
+        for ( Map.Entry<String, StatisticsProcessor> processorEntry : processors.entrySet() )
+        {
+            result.append( String.format( "--- %s\n", processorEntry.getKey() ) );
+            result.append( processorEntry.getValue() );
+            result.append( "\n" );
+        }
+        return result.toString();
+    }
+
+    @Override
+    public void abort()
+    {
+        shouldAbort = true;
+    }
+
+    @Override
+    public Progress getProgress()
+    {
+        return progress;
+    }
+
+    /**
+     * Keeps the sections of every fused processor, prefixed with its name.
+     */
+    @Override
+    public void snapshotTo( StatisticsSnapshot snapshot )
+    {
+        for ( Map.Entry<String, StatisticsProcessor> processorEntry : processors.entrySet() )
+        {
+            if ( !( processorEntry.getValue() instanceof SnapshotSource ) ) continue;
+            StatisticsSnapshot processorSnapshot = new StatisticsSnapshot( processorEntry.getKey() );
+            ( (SnapshotSource) processorEntry.getValue() ).snapshotTo( processorSnapshot );
+            snapshot.putAll( processorEntry.getKey() + "/", processorSnapshot );
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package org.neo4j.statistics;
+
+/**
+ * The approximately k most frequent values of a stream in bounded memory. A Space-Saving summary monitors at most
+ * k values in a min-heap by count, and a {@link CountMinSketch} over all values decides when an unmonitored value
+ * replaces the least frequent monitored one and what count it starts from. Counts of monitored values are exact
+ * from then on, so every count is an upper bound that overcounts by at most its error.
+ * <p>
+ * Values are identified by their {@link ValueHash}, so array values with equal elements are the same value. The heap
+ * index of a monitored value is found through an open addressing table of at least 2k slots, so adding allocates
+ * nothing.
+ */
+public class HeavyHitters
+{
+    private final CountMinSketch sketch;
+    // Heap index + 1 of the monitored value whose hash probes to the slot, 0 for an empty slot
+    private final int[] slots;
+    private final long[] hashes;
+    private final long[] counts;
+    private final long[] errors;
+    private final Object[] values;
+    private int size;
+
+    public HeavyHitters( int k, int width, int depth )
+    {
+        checkArguments( k, width, depth );
+        sketch = new CountMinSketch( width, depth );
+        slots = new int[Integer.highestOneBit( k * 2 - 1 ) << 1];
+        hashes = new long[k];
+        counts = new long[k];
+        errors = new long[k];
+        values = new Object[k];
+    }
+
+    /**
+     * @throws IllegalArgumentException if a summary cannot be created with the given arguments.
+     */
+    public static void checkArguments( int k, int width, int depth )
+    {
+        if ( k < 1 )
+        {
+            throw new IllegalArgumentException( "k must be positive, was " + k );
+        }
+        CountMinSketch.checkDimensions( width, depth );
+    }
+
+    public void add( Object value )
+    {
+        long hash = ValueHash.hash( value );
+        long estimate = sketch.add( hash, 1 );
+        int index = indexOf( hash );
+        if ( index >= 0 )
+        {
+            counts[index]++;
+            siftDown( index );
+        }
+        else if ( size < hashes.length )
+        {
+            set( size, hash, value, estimate );
+            siftUp( size++ );
+        }
+        else if ( estimate > counts[0] )
+        {
+            remove( hashes[0] );
+            set( 0, hash, value, estimate );
+            siftDown( 0 );
+        }
+    }
+
+    private void set( int index, long hash, Object value, long estimate )
+    {
+        slots[slotOf( hash )] = index + 1;
+        hashes[index] = hash;
+        values[index] = value;
+        counts[index] = estimate;
+        // Only this occurrence is certain, the sketch may have counted others into the estimate
+        errors[index] = estimate - 1;
+    }
+
+    private int indexOf( long hash )
+    {
+        return slots[slotOf( hash )] - 1;
+    }
+
+    /**
+     * @return the slot of the monitored value with the given hash, or the empty slot it would go in.
+     */
+    private int slotOf( long hash )
+    {
+        int mask = slots.length - 1;
+        int slot = home( hash );
+        while ( slots[slot] != 0 && hashes[slots[slot] - 1] != hash )
+        {
+            slot = ( slot + 1 ) & mask;
+        }
+        return slot;
+    }
+
+    private int home( long hash )
+    {
+        return (int) ( ( hash * 0x9E3779B97F4A7C15L ) >>> 32 ) & ( slots.length - 1 );
+    }
+
+    private void remove( long hash )
+    {
+        int mask = slots.length - 1;
+        int hole = slotOf( hash );
+        slots[hole] = 0;
+        // Shift later values of the probe run back into the hole, unless that would move them before their home slot
+        for ( int slot = ( hole + 1 ) & mask; slots[slot] != 0; slot = ( slot + 1 ) & mask )
+        {
+            int home = home( hashes[slots[slot] - 1] );
+            if ( ( ( slot - home ) & mask ) >= ( ( slot - hole ) & mask ) )
+            {
+                slots[hole] = slots[slot];
+                slots[slot] = 0;
+                hole = slot;
+            }
+        }
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @return the heap indexes of the monitored values, most frequent first.
+     */
+    public int[] sortedIndexes()
+    {
+        int[] indexes = new int[size];
+        for ( int i = 0; i < size; i++ )
+        {
+            int index = i;
+            while ( index > 0 && counts[indexes[index - 1]] < counts[i] )
+            {
+                indexes[index] = indexes[index - 1];
+                index--;
+            }
+            indexes[index] = i;
+        }
+        return indexes;
+    }
+
+    public Object getValue( int index )
+    {
+        return values[index];
+    }
+
+    public long getCount( int index )
+    {
+        return counts[index];
+    }
+
+    public long getError( int index )
+    {
+        return errors[index];
+    }
+
+    /**
+     * @return the estimated count of any value, monitored or not.
+     */
+    public long estimate( Object value )
+    {
+        long hash = ValueHash.hash( value );
+        int index = indexOf( hash );
+        return index >= 0 ? counts[index] : sketch.estimate( hash );
+    }
+
+    public CountMinSketch getSketch()
+    {
+        return sketch;
+    }
+
+    private void siftUp( int index )
+    {
+        while ( index > 0 )
+        {
+            int parent = ( index - 1 ) / 2;
+            if ( counts[parent] <= counts[index] ) return;
+            swap( parent, index );
+            index = parent;
+        }
+    }
+
+    private void siftDown( int index )
+    {
+        while ( true )
+        {
+            int smallest = index;
+            int left = index * 2 + 1;
+            int right = left + 1;
+            if ( left < size && counts[left] < counts[smallest] ) smallest = left;
+            if ( right < size && counts[right] < counts[smallest] ) smallest = right;
+            if ( smallest == index ) return;
+            swap( smallest, index );
+            index = smallest;
+        }
+    }
+
+    private void swap( int a, int b )
+    {
+        int slotA = slotOf( hashes[a] );
+        int slotB = slotOf( hashes[b] );
+        slots[slotA] = b + 1;
+        slots[slotB] = a + 1;
+        long hash = hashes[a];
+        hashes[a] = hashes[b];
+        hashes[b] = hash;
+        long count = counts[a];
+        counts[a] = counts[b];
+        counts[b] = count;
+        long error = errors[a];
+        errors[a] = errors[b];
+        errors[b] = error;
+        Object value = values[a];
+        values[a] = values[b];
+        values[b] = value;
+    }
+}
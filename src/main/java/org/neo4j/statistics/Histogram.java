@@ -12,7 +12,7 @@ import java.util.TreeMap;
 public class Histogram<SAMPLE_TYPE>
 {
     private Map<Long, Chunk<SAMPLE_TYPE>> chunks = new HashMap<Long, Chunk<SAMPLE_TYPE>>();
-    private long chunkSize;
+    private Bucketing bucketing;
     private long totalSamples;
     private long totalCounts;
     private boolean includeSamples;
@@ -24,10 +24,23 @@ public class Histogram<SAMPLE_TYPE>
 
     public Histogram( long chunkSize, boolean includeSamples )
     {
-        this.chunkSize = chunkSize;
+        this( new LinearBucketing( chunkSize ), includeSamples );
+    }
+
+    public Histogram( Bucketing bucketing, boolean includeSamples )
+    {
+        this.bucketing = bucketing;
         this.includeSamples = includeSamples;
     }
 
+    public Histogram( Bucketing bucketing, boolean includeSamples, Map<Long, Chunk<SAMPLE_TYPE>> chunks, long totalSamples, long totalCounts )
+    {
+        this( bucketing, includeSamples );
+        this.chunks = chunks;
+        this.totalSamples = totalSamples;
+        this.totalCounts = totalCounts;
+    }
+
     public void record( SAMPLE_TYPE sample, int countForSample )
     {
         totalSamples++;
@@ -38,19 +51,35 @@ public class Histogram<SAMPLE_TYPE>
         chunk.record( sample );
     }
 
+    public void merge( Histogram<SAMPLE_TYPE> other )
+    {
+        if ( !other.bucketing.equals( bucketing ) )
+        {
+            throw new IllegalArgumentException( "Cannot merge histograms with " + bucketing + " and " + other.bucketing );
+        }
+        totalSamples += other.totalSamples;
+        totalCounts += other.totalCounts;
+        for ( Map.Entry<Long, Chunk<SAMPLE_TYPE>> otherChunkEntry : other.chunks.entrySet() )
+        {
+            Chunk<SAMPLE_TYPE> chunk = chunks.get( otherChunkEntry.getKey() );
+            if ( chunk == null ) chunks.put( otherChunkEntry.getKey(), chunk = new Chunk<SAMPLE_TYPE>() );
+            chunk.merge( otherChunkEntry.getValue() );
+        }
+    }
+
     private long getChunkKeyForCount( long count )
     {
-        return count == 0 ? 0 : ( ( count - 1 ) / chunkSize ) + 1;
+        return bucketing.getChunkKeyForCount( count );
     }
 
     public long getCountBaseForChunkKey( long key )
     {
-        return ( ( key - 1 ) * chunkSize ) + 1;
+        return bucketing.getCountBaseForChunkKey( key );
     }
 
     public long getEndOfChunkForCountBase( long countBase )
     {
-        return countBase + chunkSize - 1;
+        return bucketing.getEndOfChunkForChunkKey( bucketing.getChunkKeyForCount( countBase ) );
     }
 
     public Map<Long, Chunk<SAMPLE_TYPE>> getChunks()
@@ -58,6 +87,11 @@ public class Histogram<SAMPLE_TYPE>
         return chunks;
     }
 
+    public Bucketing getBucketing()
+    {
+        return bucketing;
+    }
+
     public long getTotalSamples()
     {
         return totalSamples;
@@ -79,7 +113,7 @@ public class Histogram<SAMPLE_TYPE>
             Chunk<SAMPLE_TYPE> chunk = relChunkEntry.getValue();
             long count = chunk.getCount();
             aggregateCount += count;
-            long topOfChunk = chunkKey == 0 ? 0 : getEndOfChunkForCountBase( getCountBaseForChunkKey( chunkKey ) );
+            long topOfChunk = chunkKey == 0 ? 0 : bucketing.getEndOfChunkForChunkKey( chunkKey );
             long weight = count * topOfChunk;
             aggregateWeight += weight;
             writeRow( result, rank, count, chunkKey, chunk.getSamples(), aggregateCount, weight, aggregateWeight );
@@ -140,8 +174,7 @@ public class Histogram<SAMPLE_TYPE>
         {
             return "0";
         }
-        long floor = getCountBaseForChunkKey( chunkKey );
-        return floor + "-" + getEndOfChunkForCountBase( floor );
+        return getCountBaseForChunkKey( chunkKey ) + "-" + bucketing.getEndOfChunkForChunkKey( chunkKey );
     }
 
     public String toString( String sampleType, String countType )
@@ -0,0 +1,113 @@
+package org.neo4j.statistics;
+
+/**
+ * Estimates the number of distinct 64-bit hashes added to it in 2^precision bytes, with a standard error of about
+ * 1.04 / sqrt(2^precision): 4KB and 1.6% at the default precision of 12. Sketches of the same precision can be
+ * merged, so per thread or per store sketches can be combined afterwards, as long as the values were hashed the
+ * same way, e.g. by {@link ValueHash}.
+ */
+public class HyperLogLog
+{
+    public static final int DEFAULT_PRECISION = 12;
+    public static final int MIN_PRECISION = 4;
+    public static final int MAX_PRECISION = 18;
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog()
+    {
+        this( DEFAULT_PRECISION );
+    }
+
+    public HyperLogLog( int precision )
+    {
+        this.precision = checkPrecision( precision );
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * @return the precision if sketches can be created with it.
+     * @throws IllegalArgumentException if the precision is out of range.
+     */
+    public static int checkPrecision( int precision )
+    {
+        if ( precision < MIN_PRECISION || precision > MAX_PRECISION )
+        {
+            throw new IllegalArgumentException( "Precision must be between " + MIN_PRECISION + " and " + MAX_PRECISION + ", was " + precision );
+        }
+        return precision;
+    }
+
+    public void add( long hash )
+    {
+        int register = (int) ( hash >>> ( 64 - precision ) );
+        // The guard bit caps the rank at 64 - precision + 1 when the remaining bits are all zero
+        byte rank = (byte) ( Long.numberOfLeadingZeros( ( hash << precision ) | ( 1L << ( precision - 1 ) ) ) + 1 );
+        if ( rank > registers[register] ) registers[register] = rank;
+    }
+
+    public void merge( HyperLogLog other )
+    {
+        if ( other.precision != precision )
+        {
+            throw new IllegalArgumentException( "Cannot merge precision " + other.precision + " into " + precision );
+        }
+        for ( int i = 0; i < registers.length; i++ )
+        {
+            if ( other.registers[i] > registers[i] ) registers[i] = other.registers[i];
+        }
+    }
+
+    public long cardinality()
+    {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for ( byte rank : registers )
+        {
+            sum += 1.0 / ( 1L << rank );
+            if ( rank == 0 ) zeros++;
+        }
+        double estimate = alpha( m ) * m * m / sum;
+        if ( estimate <= 2.5 * m && zeros > 0 )
+        {
+            // Linear counting is more accurate while many registers are still empty
+            estimate = m * Math.log( (double) m / zeros );
+        }
+        return Math.round( estimate );
+    }
+
+    private static double alpha( int m )
+    {
+        switch ( m )
+        {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / ( 1 + 1.079 / m );
+        }
+    }
+
+    public int getPrecision()
+    {
+        return precision;
+    }
+
+    /**
+     * @return the relative standard error of {@link #cardinality()}.
+     */
+    public double getStandardError()
+    {
+        return 1.04 / Math.sqrt( registers.length );
+    }
+
+    public int sizeInBytes()
+    {
+        return registers.length;
+    }
+}
@@ -22,17 +22,17 @@ public class KeyedCounter<KEY>
         getCounter( key ).inc();
     }
 
-    public void incForKey( KEY key, int increment )
+    public void incForKey( KEY key, long increment )
     {
         getCounter( key ).add( increment );
     }
 
-    public void setForKey( KEY key, int value )
+    public void setForKey( KEY key, long value )
     {
         getCounter( key ).set( value );
     }
 
-    public int getForKey( KEY key )
+    public long getForKey( KEY key )
     {
         return getCounter( key ).getCount();
     }
@@ -0,0 +1,53 @@
+package org.neo4j.statistics;
+
+public class LinearBucketing extends Bucketing
+{
+    private final long chunkSize;
+
+    public LinearBucketing( long chunkSize )
+    {
+        if ( chunkSize < 1 )
+        {
+            throw new IllegalArgumentException( "Chunk size must be positive, was " + chunkSize );
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public long getChunkKeyForCount( long count )
+    {
+        return count == 0 ? 0 : ( ( count - 1 ) / chunkSize ) + 1;
+    }
+
+    @Override
+    public long getCountBaseForChunkKey( long key )
+    {
+        return key == 0 ? 0 : ( ( key - 1 ) * chunkSize ) + 1;
+    }
+
+    @Override
+    public long getEndOfChunkForChunkKey( long key )
+    {
+        return key == 0 ? 0 : getCountBaseForChunkKey( key ) + chunkSize - 1;
+    }
+
+    @Override
+    public boolean equals( Object o )
+    {
+        if ( this == o ) return true;
+        if ( o == null || getClass() != o.getClass() ) return false;
+        return chunkSize == ( (LinearBucketing) o ).chunkSize;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return (int) ( chunkSize ^ ( chunkSize >>> 32 ) );
+    }
+
+    @Override
+    public String toString()
+    {
+        return "linear chunks of " + chunkSize;
+    }
+}
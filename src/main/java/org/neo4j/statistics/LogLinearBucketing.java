@@ -0,0 +1,76 @@
+package org.neo4j.statistics;
+
+/**
+ * Buckets in the style of HdrHistogram: counts are exact up to a power of two derived from the number of significant
+ * digits, and above that every power of two range is split into the same number of linear buckets. This bounds the
+ * relative error of each bucket, and the number of buckets, whatever the range of counts.
+ */
+public class LogLinearBucketing extends Bucketing
+{
+    private final int significantDigits;
+    private final int subBucketHalfCountMagnitude;
+    private final long subBucketHalfCount;
+    private final long subBucketMask;
+
+    public LogLinearBucketing( int significantDigits )
+    {
+        if ( significantDigits < 1 || significantDigits > 5 )
+        {
+            throw new IllegalArgumentException( "Significant digits must be between 1 and 5, was " + significantDigits );
+        }
+        this.significantDigits = significantDigits;
+        long largestValueWithSingleUnitResolution = 2 * (long) Math.pow( 10, significantDigits );
+        int subBucketCountMagnitude = 64 - Long.numberOfLeadingZeros( largestValueWithSingleUnitResolution - 1 );
+        subBucketHalfCountMagnitude = subBucketCountMagnitude - 1;
+        subBucketHalfCount = 1L << subBucketHalfCountMagnitude;
+        subBucketMask = ( 1L << subBucketCountMagnitude ) - 1;
+    }
+
+    @Override
+    public long getChunkKeyForCount( long count )
+    {
+        int bucketIndex = 64 - Long.numberOfLeadingZeros( count | subBucketMask ) - ( subBucketHalfCountMagnitude + 1 );
+        long subBucketIndex = count >>> bucketIndex;
+        return ( (long) ( bucketIndex + 1 ) << subBucketHalfCountMagnitude ) + subBucketIndex - subBucketHalfCount;
+    }
+
+    @Override
+    public long getCountBaseForChunkKey( long key )
+    {
+        int bucketIndex = (int) ( key >> subBucketHalfCountMagnitude ) - 1;
+        long subBucketIndex = ( key & ( subBucketHalfCount - 1 ) ) + subBucketHalfCount;
+        if ( bucketIndex < 0 )
+        {
+            subBucketIndex -= subBucketHalfCount;
+            bucketIndex = 0;
+        }
+        return subBucketIndex << bucketIndex;
+    }
+
+    @Override
+    public long getEndOfChunkForChunkKey( long key )
+    {
+        int bucketIndex = Math.max( (int) ( key >> subBucketHalfCountMagnitude ) - 1, 0 );
+        return getCountBaseForChunkKey( key ) + ( 1L << bucketIndex ) - 1;
+    }
+
+    @Override
+    public boolean equals( Object o )
+    {
+        if ( this == o ) return true;
+        if ( o == null || getClass() != o.getClass() ) return false;
+        return significantDigits == ( (LogLinearBucketing) o ).significantDigits;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return significantDigits;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "log-linear buckets with " + significantDigits + " significant digits";
+    }
+}
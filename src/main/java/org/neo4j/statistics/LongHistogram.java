@@ -0,0 +1,226 @@
+package org.neo4j.statistics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link Histogram} over long samples, kept in primitive arrays. Chunks live in an open addressing table keyed by
+ * chunk key, each slot holding the chunk count and up to three samples, so recording allocates nothing.
+ */
+public class LongHistogram
+{
+    private static final int SAMPLES_PER_CHUNK = 3;
+    private static final int INITIAL_CAPACITY = 64;
+    private static final long EMPTY = -1;
+
+    private Bucketing bucketing;
+    private boolean includeSamples;
+    private long totalSamples;
+    private long totalCounts;
+
+    private long[] keys;
+    private long[] counts;
+    private long[] samples;
+    private int size;
+
+    public LongHistogram( long chunkSize )
+    {
+        this( chunkSize, true );
+    }
+
+    public LongHistogram( Bucketing bucketing )
+    {
+        this( bucketing, true );
+    }
+
+    public LongHistogram( long chunkSize, boolean includeSamples )
+    {
+        this( new LinearBucketing( chunkSize ), includeSamples );
+    }
+
+    public LongHistogram( Bucketing bucketing, boolean includeSamples )
+    {
+        this.bucketing = bucketing;
+        this.includeSamples = includeSamples;
+        allocate( INITIAL_CAPACITY );
+    }
+
+    public void record( long sample, long countForSample )
+    {
+        totalSamples++;
+        totalCounts += countForSample;
+        int slot = slotFor( bucketing.getChunkKeyForCount( countForSample ) );
+        long chunkCount = counts[slot]++;
+        if ( includeSamples && chunkCount < SAMPLES_PER_CHUNK )
+        {
+            samples[slot * SAMPLES_PER_CHUNK + (int) chunkCount] = sample;
+        }
+    }
+
+    public void recordCount( long countForSample )
+    {
+        if ( includeSamples )
+        {
+            throw new IllegalStateException( "Histogram keeps samples, use record( sample, count )." );
+        }
+        totalSamples++;
+        totalCounts += countForSample;
+        // Find the slot first, finding it may grow the table and replace counts
+        int slot = slotFor( bucketing.getChunkKeyForCount( countForSample ) );
+        counts[slot]++;
+    }
+
+    public void merge( LongHistogram other )
+    {
+        if ( !other.bucketing.equals( bucketing ) )
+        {
+            throw new IllegalArgumentException( "Cannot merge histograms with " + bucketing + " and " + other.bucketing );
+        }
+        totalSamples += other.totalSamples;
+        totalCounts += other.totalCounts;
+        for ( int otherSlot = 0; otherSlot < other.keys.length; otherSlot++ )
+        {
+            if ( other.keys[otherSlot] == EMPTY ) continue;
+            int slot = slotFor( other.keys[otherSlot] );
+            if ( includeSamples && other.includeSamples )
+            {
+                int sampleCount = (int) Math.min( counts[slot], SAMPLES_PER_CHUNK );
+                int otherSampleCount = (int) Math.min( other.counts[otherSlot], SAMPLES_PER_CHUNK );
+                for ( int i = 0; i < otherSampleCount && sampleCount < SAMPLES_PER_CHUNK; i++ )
+                {
+                    samples[slot * SAMPLES_PER_CHUNK + sampleCount++] = other.samples[otherSlot * SAMPLES_PER_CHUNK + i];
+                }
+            }
+            counts[slot] += other.counts[otherSlot];
+        }
+    }
+
+    public Bucketing getBucketing()
+    {
+        return bucketing;
+    }
+
+    public long getTotalSamples()
+    {
+        return totalSamples;
+    }
+
+    public long getTotalCounts()
+    {
+        return totalCounts;
+    }
+
+    /**
+     * @return the highest count of the chunk that holds the given percentile of the samples, so at most one chunk
+     * above the exact percentile, or 0 if nothing was recorded.
+     */
+    public long getPercentile( double percentile )
+    {
+        if ( percentile < 0 || percentile > 100 )
+        {
+            throw new IllegalArgumentException( "Percentile must be between 0 and 100, was " + percentile );
+        }
+        if ( totalSamples == 0 ) return 0;
+        long[] chunkKeys = new long[size];
+        int chunks = 0;
+        for ( long key : keys )
+        {
+            if ( key != EMPTY ) chunkKeys[chunks++] = key;
+        }
+        Arrays.sort( chunkKeys );
+        long rank = Math.max( 1, (long) Math.ceil( percentile / 100 * totalSamples ) );
+        long seen = 0;
+        for ( long key : chunkKeys )
+        {
+            seen += counts[slotFor( key )];
+            if ( seen >= rank ) return bucketing.getEndOfChunkForChunkKey( key );
+        }
+        return bucketing.getEndOfChunkForChunkKey( chunkKeys[chunkKeys.length - 1] );
+    }
+
+    public Map<Long, Chunk<Long>> getChunks()
+    {
+        Map<Long, Chunk<Long>> chunks = new HashMap<Long, Chunk<Long>>();
+        for ( int slot = 0; slot < keys.length; slot++ )
+        {
+            if ( keys[slot] == EMPTY ) continue;
+            List<Long> chunkSamples = new ArrayList<Long>();
+            if ( includeSamples )
+            {
+                for ( int i = 0; i < Math.min( counts[slot], SAMPLES_PER_CHUNK ); i++ )
+                {
+                    chunkSamples.add( samples[slot * SAMPLES_PER_CHUNK + i] );
+                }
+            }
+            chunks.put( keys[slot], new Chunk<Long>( counts[slot], chunkSamples ) );
+        }
+        return chunks;
+    }
+
+    public Histogram<Long> toHistogram()
+    {
+        return new Histogram<Long>( bucketing, includeSamples, getChunks(), totalSamples, totalCounts );
+    }
+
+    public String toString( String sampleType, String countType )
+    {
+        return toHistogram().toString( sampleType, countType );
+    }
+
+    private int slotFor( long key )
+    {
+        int mask = keys.length - 1;
+        int slot = hash( key ) & mask;
+        while ( keys[slot] != key )
+        {
+            if ( keys[slot] == EMPTY )
+            {
+                if ( ( size + 1 ) * 2 > keys.length )
+                {
+                    grow();
+                    return slotFor( key );
+                }
+                keys[slot] = key;
+                size++;
+                return slot;
+            }
+            slot = ( slot + 1 ) & mask;
+        }
+        return slot;
+    }
+
+    private static int hash( long key )
+    {
+        return (int) ( ( key * 0x9E3779B97F4A7C15L ) >>> 32 );
+    }
+
+    private void grow()
+    {
+        long[] oldKeys = keys;
+        long[] oldCounts = counts;
+        long[] oldSamples = samples;
+        allocate( oldKeys.length * 2 );
+        for ( int oldSlot = 0; oldSlot < oldKeys.length; oldSlot++ )
+        {
+            if ( oldKeys[oldSlot] == EMPTY ) continue;
+            int slot = slotFor( oldKeys[oldSlot] );
+            counts[slot] = oldCounts[oldSlot];
+            if ( includeSamples )
+            {
+                System.arraycopy( oldSamples, oldSlot * SAMPLES_PER_CHUNK, samples, slot * SAMPLES_PER_CHUNK, SAMPLES_PER_CHUNK );
+            }
+        }
+    }
+
+    private void allocate( int capacity )
+    {
+        keys = new long[capacity];
+        Arrays.fill( keys, EMPTY );
+        counts = new long[capacity];
+        samples = includeSamples ? new long[capacity * SAMPLES_PER_CHUNK] : null;
+        size = 0;
+    }
+}
@@ -3,23 +3,36 @@ package org.neo4j.statistics;
 import jline.ConsoleReader;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+import org.neo4j.statistics.snapshot.SnapshotDiff;
+import org.neo4j.statistics.snapshot.SnapshotSource;
+import org.neo4j.statistics.snapshot.StatisticsSnapshot;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 public class Main
 {
+    private static final long PROGRESS_INTERVAL_SECONDS = 10;
+    // Queued by identity when a processor finishes, so that waiting for input also waits for the processor
+    private static final String PROCESSOR_DONE = new String( "done" );
 
     private Map<String, StatisticsProcessorFactory> processorFactories = new HashMap<String, StatisticsProcessorFactory>();
     private File storePath;
-    private ExecutorService executorService;
+    private ScheduledExecutorService executorService;
     private ConsoleReader reader;
+    private BlockingQueue<String> input = new LinkedBlockingQueue<String>();
     private StatisticsProcessor lastProcessor;
+    private String lastProcessorName;
+    private GraphDatabaseService graphDb;
 
     public Main( String storePath ) throws IOException
     {
@@ -42,6 +55,7 @@ public class Main
 
     private void shutdown()
     {
+        closeGraphDb();
         executorService.shutdownNow();
     }
 
@@ -50,13 +64,14 @@ public class Main
         loadProcessors();
         printWelcome();
         printHelp();
+        startConsoleReader();
 
         while ( handleCmd() ) ;
     }
 
     private boolean handleCmd() throws Exception
     {
-        String cmd = reader.readLine( "> " );
+        String cmd = nextCommand();
         if ( cmd.isEmpty() ) return true;
         if ( cmd.equalsIgnoreCase( "exit" ) || cmd.equalsIgnoreCase( "quit" ) ) return false;
         if ( cmd.equalsIgnoreCase( "help" ) )
@@ -69,30 +84,94 @@ public class Main
             printLastResult();
             return true;
         }
+        if ( cmd.equalsIgnoreCase( "close" ) )
+        {
+            println( closeGraphDb() ? "Closed store %s." : "Store %s is not open.", storePath );
+            return true;
+        }
+        if ( cmd.equalsIgnoreCase( "reopen" ) )
+        {
+            closeGraphDb();
+            openGraphDb();
+            return true;
+        }
 
         String[] cmdParts = cmd.split( "\\s" );
         String processorName = cmdParts[0];
-        StatisticsProcessorFactory processorFactory = processorFactories.get( processorName );
-        if ( processorFactory == null )
+        if ( processorName.equalsIgnoreCase( "save" ) )
+        {
+            saveLastResult( extractArgs( cmdParts ) );
+            return true;
+        }
+        if ( processorName.equalsIgnoreCase( "diff" ) )
+        {
+            diffSnapshots( extractArgs( cmdParts ) );
+            return true;
+        }
+        boolean fused = processorName.equalsIgnoreCase( "all" );
+        if ( fused )
+        {
+            if ( !checkFusedArgs( extractArgs( cmdParts ) ) ) return true;
+        }
+        else if ( !processorFactories.containsKey( processorName ) )
         {
             println( "No such processor or command: %s", processorName );
             return true;
         }
 
-        GraphDatabaseService graphDb = createGraphDb();
+        GraphDatabaseService graphDb = openGraphDb();
         try
         {
-            lastProcessor = processorFactory.getProcessor( graphDb, extractArgs( cmdParts ), System.out );
+            StatisticsProcessor processor = fused
+                ? createFusedScan( graphDb, extractArgs( cmdParts ) )
+                : processorFactories.get( processorName ).getProcessor( graphDb, extractArgs( cmdParts ), System.out );
+            lastProcessor = processor;
+            lastProcessorName = processorName;
             runProcessor( lastProcessor, processorName );
-            println( "Processor %s finished.\n", processorName );
+            println( "Processor %s finished, %s.\n", processorName, lastProcessor.getProgress() );
             lastProcessor.reportProgress();
             println();
             return true;
         }
-        finally
+        catch ( IllegalArgumentException e )
+        {
+            println( "Invalid arguments: %s", e.getMessage() );
+            return true;
+        }
+    }
+
+    private boolean checkFusedArgs( List<String> processorSpecs )
+    {
+        if ( processorSpecs.isEmpty() )
+        {
+            println( "Usage: all <processor>[:arg,...] ..." );
+            return false;
+        }
+        for ( String processorSpec : processorSpecs )
         {
-            graphDb.shutdown();
+            String processorName = processorSpec.split( ":" )[0];
+            if ( !processorFactories.containsKey( processorName ) )
+            {
+                println( "No such processor: %s", processorName );
+                return false;
+            }
         }
+        return true;
+    }
+
+    private FusedScan createFusedScan( GraphDatabaseService graphDb, List<String> processorSpecs )
+    {
+        FusedScan fusedScan = new FusedScan( graphDb, System.out );
+        for ( String processorSpec : processorSpecs )
+        {
+            String[] specParts = processorSpec.split( ":", 2 );
+            List<String> args = specParts.length > 1
+                ? Arrays.asList( specParts[1].split( "," ) )
+                : Collections.<String>emptyList();
+            StatisticsProcessorFactory processorFactory = processorFactories.get( specParts[0] );
+            fusedScan.add( specParts[0], processorFactory.getProcessor( graphDb, args, System.out ) );
+        }
+        return fusedScan;
     }
 
     private void printLastResult()
@@ -103,8 +182,71 @@ public class Main
         }
         else
         {
-            println( "No processor has been run yet." );
+            println( "No processor has been run since the store was opened." );
+        }
+    }
+
+    private void saveLastResult( List<String> args ) throws IOException
+    {
+        if ( args.size() != 1 )
+        {
+            println( "Usage: save <file>" );
+            return;
+        }
+        if ( !( lastProcessor instanceof SnapshotSource ) )
+        {
+            println( lastProcessor == null ? "No processor has been run since the store was opened." : "Processor %s cannot be saved.", lastProcessorName );
+            return;
         }
+        StatisticsSnapshot snapshot = new StatisticsSnapshot( lastProcessorName );
+        ( (SnapshotSource) lastProcessor ).snapshotTo( snapshot );
+        File file = new File( args.get( 0 ) );
+        snapshot.save( file );
+        println( "Saved %s to %s (%d bytes).", snapshot, file, file.length() );
+    }
+
+    private void diffSnapshots( List<String> args )
+    {
+        if ( args.size() != 2 )
+        {
+            println( "Usage: diff <older snapshot> <newer snapshot>" );
+            return;
+        }
+        try
+        {
+            System.out.print( new SnapshotDiff( StatisticsSnapshot.load( new File( args.get( 0 ) ) ),
+                StatisticsSnapshot.load( new File( args.get( 1 ) ) ) ) );
+        }
+        catch ( IOException e )
+        {
+            println( "Unable to read snapshot: %s", e.getMessage() );
+        }
+    }
+
+    /**
+     * The store is opened on first use and kept open between commands, so that consecutive runs share warm caches
+     * and memory mapped windows instead of paying for startup and recovery every time.
+     */
+    private GraphDatabaseService openGraphDb()
+    {
+        if ( graphDb == null )
+        {
+            long started = System.currentTimeMillis();
+            graphDb = createGraphDb();
+            println( "Opened store %s in %dms.", storePath, System.currentTimeMillis() - started );
+        }
+        return graphDb;
+    }
+
+    private boolean closeGraphDb()
+    {
+        if ( graphDb == null ) return false;
+        // Processors keep the store they ran on, reporting them after shutdown would fail
+        lastProcessor = null;
+        lastProcessorName = null;
+        graphDb.shutdown();
+        graphDb = null;
+        return true;
     }
 
     private GraphDatabaseService createGraphDb()
@@ -123,7 +265,46 @@ public class Main
         return args;
     }
 
-    private void runProcessor( final StatisticsProcessor processor, String processorName ) throws IOException, InterruptedException, ExecutionException
+    /**
+     * Console lines are read by a thread of their own and handed over through a queue, so that the command loop can
+     * block on input and processor completion alike instead of polling the console.
+     */
+    private void startConsoleReader()
+    {
+        Thread consoleReader = new Thread( new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    for ( String line = reader.readLine(); line != null; line = reader.readLine() )
+                    {
+                        input.put( line );
+                    }
+                }
+                catch ( IOException e )
+                {
+                    e.printStackTrace();
+                }
+                catch ( InterruptedException e )
+                {
+                    return;
+                }
+                input.offer( "exit" );
+            }
+        }, "console-reader" );
+        consoleReader.setDaemon( true );
+        consoleReader.start();
+    }
+
+    private String nextCommand() throws InterruptedException
+    {
+        System.out.print( "> " );
+        System.out.flush();
+        return input.take().trim();
+    }
+
+    private void runProcessor( final StatisticsProcessor processor, final String processorName ) throws InterruptedException, ExecutionException
     {
         Future<?> processorFuture = executorService.submit( new Runnable()
         {
@@ -137,38 +318,53 @@ public class Main
                 {
                     e.printStackTrace();
                 }
+                finally
+                {
+                    processor.getProgress().finish();
+                    input.offer( PROCESSOR_DONE );
+                }
             }
         } );
+        ScheduledFuture<?> reporter = executorService.scheduleAtFixedRate( new Runnable()
+        {
+            public void run()
+            {
+                println( "[%s] %s", processorName, processor.getProgress() );
+            }
+        }, PROGRESS_INTERVAL_SECONDS, PROGRESS_INTERVAL_SECONDS, TimeUnit.SECONDS );
 
-        println( "\nHit ENTER for progress, or type \"abort<ENTER>\" to abort the command." );
+        println( "\nHit ENTER for progress, type \"report<ENTER>\" for partial results or \"abort<ENTER>\" to abort the command." );
 
-        while ( !processorFuture.isDone() )
+        boolean aborted = false;
+        try
         {
-            if ( hasInput() )
+            for ( String line = input.take(); line != PROCESSOR_DONE; line = input.take() )
             {
-                if ( shouldAbort() )
+                if ( line.trim().equalsIgnoreCase( "abort" ) )
                 {
                     println( "Aborting processor %s...", processorName );
                     processor.abort();
-                    processorFuture.get();
-                    println( "Aborted processor %s.", processorName );
-                    return;
+                    aborted = true;
+                }
+                else if ( line.trim().equalsIgnoreCase( "report" ) )
+                {
+                    processor.reportProgress();
+                }
+                else
+                {
+                    println( "[%s] %s", processorName, processor.getProgress() );
                 }
-                processor.reportProgress();
             }
         }
-    }
-
-    private boolean shouldAbort() throws IOException
-    {
-        String line = reader.readLine();
-        return line.equalsIgnoreCase( "abort" );
-    }
-
-    private boolean hasInput() throws IOException
-    {
-        int available = reader.getInput().available();
-        return available > 0;
+        finally
+        {
+            reporter.cancel( false );
+        }
+        processorFuture.get();
+        if ( aborted )
+        {
+            println( "Aborted processor %s.", processorName );
+        }
     }
 
     private void loadProcessors()
@@ -195,9 +391,14 @@ public class Main
         }
         println();
         println( "Available builtins:" );
+        println( "  all <processor>[:arg,...] ...   Run several processors over a single store scan" );
         println( "  help           Show this" );
         println( "  exit or quit   Exit" );
         println( "  last           Show results of last run" );
+        println( "  save <file>    Save the results of the last run as a snapshot" );
+        println( "  diff <a> <b>   Compare two saved snapshots, without opening the store" );
+        println( "  reopen         Close and reopen the store, e.g. to pick up changes made by other tools" );
+        println( "  close          Close the store until the next processor run needs it" );
     }
 
     private static void println()
@@ -0,0 +1,103 @@
+package org.neo4j.statistics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cheap progress of a running processor, in store ids scanned out of the high id of the store being scanned. A single
+ * scanning thread publishes its position with {@link #set(long)}, which is a lazy write and costs about as much as a
+ * plain field store, parallel scans add the ids of each finished block with {@link #add(long)}. Readers never touch the
+ * partial result, so progress can be polled as often as wanted while a scan runs.
+ */
+public class Progress
+{
+    private final AtomicLong processed = new AtomicLong();
+    private volatile long total;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+
+    /**
+     * @param estimatedTotal the number of ids that will be scanned, usually the high id of the store.
+     */
+    public void start( long estimatedTotal )
+    {
+        total = estimatedTotal;
+        finishedAt = 0;
+        processed.set( 0 );
+        startedAt = System.currentTimeMillis();
+    }
+
+    public void set( long processedSoFar )
+    {
+        processed.lazySet( processedSoFar );
+    }
+
+    public void add( long delta )
+    {
+        processed.addAndGet( delta );
+    }
+
+    public void finish()
+    {
+        if ( startedAt != 0 && finishedAt == 0 ) finishedAt = System.currentTimeMillis();
+    }
+
+    public long getProcessed()
+    {
+        return processed.get();
+    }
+
+    public long getTotal()
+    {
+        return total;
+    }
+
+    public boolean isStarted()
+    {
+        return startedAt != 0;
+    }
+
+    public long getElapsedMillis()
+    {
+        if ( startedAt == 0 ) return 0;
+        return ( finishedAt != 0 ? finishedAt : System.currentTimeMillis() ) - startedAt;
+    }
+
+    /**
+     * @return ids scanned per second since the scan started.
+     */
+    public double getThroughput()
+    {
+        long elapsed = getElapsedMillis();
+        return elapsed == 0 ? 0 : getProcessed() * 1000.0 / elapsed;
+    }
+
+    /**
+     * @return the estimated time left at the throughput so far, or -1 if there is no estimate yet.
+     */
+    public long getEtaMillis()
+    {
+        if ( finishedAt != 0 ) return 0;
+        long processedSoFar = getProcessed();
+        if ( processedSoFar == 0 || total <= 0 ) return -1;
+        return (long) ( Math.max( 0, total - processedSoFar ) * ( getElapsedMillis() / (double) processedSoFar ) );
+    }
+
+    @Override
+    public String toString()
+    {
+        if ( !isStarted() ) return "Not started";
+        long processedSoFar = getProcessed();
+        long eta = getEtaMillis();
+        return String.format( "%d/%d ids (%.1f%%), %.0f ids/s, %s", processedSoFar, total,
+            total > 0 ? Math.min( 100.0, processedSoFar * 100.0 / total ) : 0.0, getThroughput(),
+            finishedAt != 0 ? "done in " + formatMillis( getElapsedMillis() ) : "ETA " + ( eta < 0 ? "unknown" : formatMillis( eta ) ) );
+    }
+
+    private static String formatMillis( long millis )
+    {
+        long seconds = millis / 1000;
+        if ( seconds < 60 ) return String.format( "%d.%01ds", seconds, millis % 1000 / 100 );
+        if ( seconds < 3600 ) return String.format( "%dm%02ds", seconds / 60, seconds % 60 );
+        return String.format( "%dh%02dm", seconds / 3600, seconds % 3600 / 60 );
+    }
+}
@@ -0,0 +1,75 @@
+package org.neo4j.statistics;
+
+import java.lang.reflect.Array;
+
+public class PropertySizes
+{
+    public static boolean isLengthable( Class<?> type )
+    {
+        return type.isArray() || type == String.class;
+    }
+
+    /**
+     * @return the length in bytes of a string or primitive array value, as UTF-8 for strings, the element size
+     * times the number of elements for int, long and short arrays, and the number of elements for other arrays.
+     */
+    public static int lengthOf( Class<?> type, Object value )
+    {
+        if ( type == String.class ) return utf8Length( (String) value );
+        if ( type == int[].class ) return ( (int[]) value ).length * 4;
+        if ( type == long[].class ) return ( (long[]) value ).length * 8;
+        if ( type == short[].class ) return ( (short[]) value ).length * 2;
+        if ( type == byte[].class ) return ( (byte[]) value ).length;
+        if ( type == String[].class ) return ( (String[]) value ).length;
+        if ( type == double[].class ) return ( (double[]) value ).length;
+        if ( type == float[].class ) return ( (float[]) value ).length;
+        if ( type == boolean[].class ) return ( (boolean[]) value ).length;
+        if ( type == char[].class ) return ( (char[]) value ).length;
+        return Array.getLength( value );
+    }
+
+    /**
+     * @return the fixed width in bytes of a primitive value, or {@link #lengthOf(Class, Object)} for strings and
+     * arrays.
+     */
+    public static int sizeOf( Class<?> type, Object value )
+    {
+        if ( isLengthable( type ) ) return lengthOf( type, value );
+        if ( type == Integer.class || type == Float.class ) return 4;
+        if ( type == Long.class || type == Double.class ) return 8;
+        if ( type == Short.class || type == Character.class ) return 2;
+        return 1;
+    }
+
+    /**
+     * @return the number of bytes {@link String#getBytes(java.nio.charset.Charset)} would produce for UTF-8, where
+     * an unpaired surrogate is encoded as a single replacement byte.
+     */
+    public static int utf8Length( String value )
+    {
+        int length = value.length();
+        int bytes = length;
+        for ( int i = 0; i < length; i++ )
+        {
+            char c = value.charAt( i );
+            if ( c < 0x80 ) continue;
+            if ( c < 0x800 )
+            {
+                bytes += 1;
+            }
+            else if ( Character.isHighSurrogate( c ) )
+            {
+                if ( i + 1 < length && Character.isLowSurrogate( value.charAt( i + 1 ) ) )
+                {
+                    bytes += 2;
+                    i++;
+                }
+            }
+            else if ( !Character.isLowSurrogate( c ) )
+            {
+                bytes += 2;
+            }
+        }
+        return bytes;
+    }
+}
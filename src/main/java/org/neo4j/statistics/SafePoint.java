@@ -0,0 +1,105 @@
+package org.neo4j.statistics;
+
+/**
+ * Hands consistent copies of a processor's partial result from its scanning thread to readers, without locking in the
+ * scan. Readers ask for a snapshot and wait, the scanning thread checks a volatile flag at safe points between records,
+ * where its aggregates are consistent, renders the result there and publishes it with a new epoch. When no scan is
+ * running the result is rendered directly, since nothing is mutating it.
+ */
+public class SafePoint
+{
+    public static final long DEFAULT_TIMEOUT_MILLIS = 5000;
+
+    private final Object result;
+    private volatile boolean scanning;
+    private volatile boolean requested;
+    private volatile long epoch;
+    private volatile String published;
+
+    /**
+     * @param result the aggregate to snapshot, rendered with its {@link Object#toString()}.
+     */
+    public SafePoint( Object result )
+    {
+        this.result = result;
+    }
+
+    /**
+     * Marks the calling thread as mutating the result until {@link #exit()}.
+     */
+    public void enter()
+    {
+        published = null;
+        scanning = true;
+    }
+
+    public void exit()
+    {
+        scanning = false;
+        synchronized ( this )
+        {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Called by the scanning thread wherever the result is consistent. Costs a volatile read unless a snapshot was
+     * asked for.
+     */
+    public void reached()
+    {
+        if ( requested ) publish();
+    }
+
+    private void publish()
+    {
+        String snapshot = String.valueOf( result );
+        synchronized ( this )
+        {
+            published = snapshot;
+            requested = false;
+            epoch++;
+            notifyAll();
+        }
+    }
+
+    public long getEpoch()
+    {
+        return epoch;
+    }
+
+    public String snapshot()
+    {
+        return snapshot( DEFAULT_TIMEOUT_MILLIS );
+    }
+
+    /**
+     * @return the result as of the next safe point, or the last published one if the scan does not reach a safe point
+     * within the timeout.
+     */
+    public synchronized String snapshot( long timeoutMillis )
+    {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        long requestedEpoch = epoch;
+        requested = true;
+        try
+        {
+            while ( scanning && epoch == requestedEpoch )
+            {
+                long wait = deadline - System.currentTimeMillis();
+                if ( wait <= 0 ) return published != null ? published : "No consistent result yet, the scan is busy.\n";
+                wait( wait );
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            return published != null ? published : "";
+        }
+        finally
+        {
+            requested = false;
+        }
+        return scanning ? published : String.valueOf( result );
+    }
+}
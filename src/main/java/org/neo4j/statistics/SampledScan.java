@@ -0,0 +1,295 @@
+package org.neo4j.statistics;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.statistics.snapshot.SnapshotSource;
+import org.neo4j.statistics.snapshot.StatisticsSnapshot;
+import org.neo4j.statistics.store.StoreAccess;
+
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Estimates the results of a processor from uniformly random ids below the high id of the node or relationship store,
+ * instead of visiting every entity. Ids that are not in use count as draws that contribute nothing, so every count of
+ * the processor is estimated as the high id times its mean contribution per draw, with a 95% confidence interval from
+ * the variance of those contributions. Every hit is visited by a fresh processor from {@link Accumulators} and its
+ * contributions are that processor's {@link SnapshotSource} sections, so a draw costs what it touches rather than the
+ * size of everything counted so far, and any processor that can be fused and saved can also be sampled.
+ * <p>
+ * Sampling nodes visits their outgoing relationships too, as a full scan does, which samples relationships in
+ * clusters: their estimates stay unbiased but have wider intervals than sampling relationship ids directly.
+ */
+public class SampledScan implements StatisticsProcessor, SnapshotSource
+{
+    public static final String SAMPLE = "sample";
+
+    private static final double Z_95 = 1.96;
+    // Gives up on stores that are mostly holes rather than drawing forever
+    private static final long MAX_DRAWS_PER_HIT = 1000;
+
+    public enum Entities
+    {
+        NODES, RELATIONSHIPS
+    }
+
+    /**
+     * Creates the processors that sampled entities are visited with, one per hit.
+     */
+    public interface Accumulators
+    {
+        /**
+         * @return an empty processor that is both a {@link ScanVisitor} and a {@link SnapshotSource}.
+         */
+        StatisticsProcessor newAccumulator();
+    }
+
+    private final GraphDatabaseService graphDb;
+    private final PrintStream out;
+    private final Accumulators accumulators;
+    private final Entities entities;
+    private final double fraction;
+    private final long sampleSize;
+    private final Random random;
+    private volatile boolean shouldAbort;
+    private final Progress progress = new Progress();
+    private final SafePoint safePoint = new SafePoint( this );
+
+    private final Map<String, Map<String, double[]>> contributions = new LinkedHashMap<String, Map<String, double[]>>();
+    private long highId;
+    private long draws;
+    private long hits;
+
+    /**
+     * @param sampleSpec either a fraction of the ids below the high id to draw, like "0.01", or a number of entities in
+     * use to visit, like "10000".
+     */
+    public SampledScan( GraphDatabaseService graphDb, PrintStream out, Accumulators accumulators, Entities entities,
+        String sampleSpec, Random random )
+    {
+        StatisticsProcessor processor = accumulators.newAccumulator();
+        if ( !( processor instanceof ScanVisitor ) || !( processor instanceof SnapshotSource ) )
+        {
+            throw new IllegalArgumentException( "Processor " + processor.getClass().getSimpleName() + " cannot be sampled." );
+        }
+        if ( ( (ScanVisitor) processor ).getUnfusableOption() != null )
+        {
+            throw new IllegalArgumentException( "Processor " + processor.getClass().getSimpleName() + " cannot be sampled with option "
+                + ( (ScanVisitor) processor ).getUnfusableOption() + "." );
+        }
+        this.graphDb = graphDb;
+        this.out = out;
+        this.accumulators = accumulators;
+        this.entities = entities;
+        this.random = random;
+        if ( sampleSpec.contains( "." ) )
+        {
+            fraction = Double.valueOf( sampleSpec );
+            sampleSize = 0;
+            if ( fraction <= 0 || fraction > 1 ) throw new IllegalArgumentException( "Sample fraction must be in (0, 1]: " + sampleSpec );
+        }
+        else
+        {
+            fraction = 0;
+            sampleSize = Long.valueOf( sampleSpec );
+            if ( sampleSize < 1 ) throw new IllegalArgumentException( "Sample size must be positive: " + sampleSpec );
+        }
+    }
+
+    /**
+     * Removes "sample &lt;fraction|N&gt;" from the arguments.
+     *
+     * @return the sample spec, or null if the arguments do not ask for sampling.
+     */
+    public static String removeSampleSpec( List<String> args )
+    {
+        int index = args.indexOf( SAMPLE );
+        if ( index < 0 ) return null;
+        if ( index + 1 >= args.size() ) throw new IllegalArgumentException( "Missing <fraction|N> after " + SAMPLE );
+        args.remove( index );
+        return args.remove( index );
+    }
+
+    @Override
+    public void process()
+    {
+        safePoint.enter();
+        try
+        {
+            sample();
+        }
+        finally
+        {
+            safePoint.exit();
+        }
+    }
+
+    private void sample()
+    {
+        highId = new StoreAccess( graphDb ).getHighId( entities == Entities.NODES ? Node.class : Relationship.class );
+        long maxDraws = fraction > 0 ? (long) Math.ceil( fraction * highId ) : sampleSize * MAX_DRAWS_PER_HIT;
+        long targetHits = fraction > 0 ? Long.MAX_VALUE : sampleSize;
+        progress.start( fraction > 0 ? maxDraws : targetHits );
+        while ( highId > 0 && draws < maxDraws && hits < targetHits )
+        {
+            if ( shouldAbort ) return;
+            draws++;
+            if ( visit( (long) ( random.nextDouble() * highId ) ) ) hits++;
+            progress.set( fraction > 0 ? draws : hits );
+            safePoint.reached();
+        }
+    }
+
+    private boolean visit( long id )
+    {
+        StatisticsProcessor accumulator;
+        try
+        {
+            if ( entities == Entities.RELATIONSHIPS )
+            {
+                Relationship rel = graphDb.getRelationshipById( id );
+                accumulator = accumulators.newAccumulator();
+                ( (ScanVisitor) accumulator ).visitRelationship( rel );
+            }
+            else
+            {
+                Node node = graphDb.getNodeById( id );
+                accumulator = accumulators.newAccumulator();
+                ScanVisitor visitor = (ScanVisitor) accumulator;
+                visitor.visitNode( node );
+                for ( Relationship rel : node.getRelationships( Direction.OUTGOING ) )
+                {
+                    visitor.visitRelationship( rel );
+                }
+            }
+        }
+        catch ( NotFoundException e )
+        {
+            return false;
+        }
+        ( (ScanVisitor) accumulator ).scanFinished();
+        StatisticsSnapshot draw = new StatisticsSnapshot( SAMPLE );
+        ( (SnapshotSource) accumulator ).snapshotTo( draw );
+        addContributions( draw );
+        return true;
+    }
+
+    private void addContributions( StatisticsSnapshot draw )
+    {
+        for ( String section : draw.getSectionNames() )
+        {
+            Map<String, double[]> sectionContributions = contributions.get( section );
+            if ( sectionContributions == null ) contributions.put( section, sectionContributions = new LinkedHashMap<String, double[]>() );
+            for ( Map.Entry<String, Long> entry : draw.getSection( section ).entrySet() )
+            {
+                double contribution = entry.getValue();
+                if ( contribution == 0 ) continue;
+                double[] sums = sectionContributions.get( entry.getKey() );
+                if ( sums == null ) sectionContributions.put( entry.getKey(), sums = new double[2] );
+                sums[0] += contribution;
+                sums[1] += contribution * contribution;
+            }
+        }
+    }
+
+    public long getDraws()
+    {
+        return draws;
+    }
+
+    public long getHits()
+    {
+        return hits;
+    }
+
+    public long estimate( String section, String key )
+    {
+        double[] sums = sums( section, key );
+        return sums == null ? 0 : Math.round( estimate( sums ) );
+    }
+
+    /**
+     * @return the half width of the 95% confidence interval of the estimate.
+     */
+    public long confidence( String section, String key )
+    {
+        double[] sums = sums( section, key );
+        return sums == null ? 0 : Math.round( confidence( sums ) );
+    }
+
+    private double[] sums( String section, String key )
+    {
+        Map<String, double[]> sectionContributions = contributions.get( section );
+        return sectionContributions == null ? null : sectionContributions.get( key );
+    }
+
+    private double estimate( double[] sums )
+    {
+        return draws == 0 ? 0 : highId * sums[0] / draws;
+    }
+
+    private double confidence( double[] sums )
+    {
+        if ( draws < 2 ) return highId;
+        double mean = sums[0] / draws;
+        double variance = Math.max( 0, ( sums[1] / draws - mean * mean ) * draws / ( draws - 1 ) );
+        return Z_95 * highId * Math.sqrt( variance / draws );
+    }
+
+    @Override
+    public void snapshotTo( StatisticsSnapshot snapshot )
+    {
+        for ( Map.Entry<String, Map<String, double[]>> section : contributions.entrySet() )
+        {
+            for ( Map.Entry<String, double[]> entry : section.getValue().entrySet() )
+            {
+                snapshot.put( section.getKey(), entry.getKey(), Math.round( estimate( entry.getValue() ) ) );
+            }
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder result = new StringBuilder();
+        result.append( String.format( "Sampled %d %s in %d draws below high id %d, estimates with 95%% confidence intervals\n",
+            hits, entities.name().toLowerCase(), draws, highId ) );
+        for ( Map.Entry<String, Map<String, double[]>> section : contributions.entrySet() )
+        {
+            result.append( "--- " ).append( section.getKey() ).append( "\n" );
+            result.append( "Key\t\tEstimate\t+/-\n" );
+            for ( Map.Entry<String, double[]> entry : section.getValue().entrySet() )
+            {
+                double estimate = estimate( entry.getValue() );
+                double confidence = confidence( entry.getValue() );
+                result.append( String.format( "%s\t\t%d\t\t%d (%.1f%%)\n", entry.getKey(), Math.round( estimate ),
+                    Math.round( confidence ), estimate == 0 ? 0.0 : confidence * 100 / estimate ) );
+            }
+        }
+        return result.toString();
+    }
+
+    @Override
+    public void reportProgress()
+    {
+        out.print( safePoint.snapshot() );
+    }
+
+    @Override
+    public void abort()
+    {
+        shouldAbort = true;
+    }
+
+    @Override
+    public Progress getProgress()
+    {
+        return progress;
+    }
+}
@@ -0,0 +1,22 @@
+package org.neo4j.statistics;
+
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+
+public interface ScanVisitor
+{
+    void visitNode( Node node );
+
+    void visitRelationship( Relationship rel );
+
+    /**
+     * Called once after the last node and relationship of a scan, for aggregates that can only be completed then.
+     */
+    void scanFinished();
+
+    /**
+     * @return the option that keeps this visitor from being driven by a scan it does not run itself, like reading the
+     * store files directly or splitting its own scan over threads, or null if it can be.
+     */
+    String getUnfusableOption();
+}
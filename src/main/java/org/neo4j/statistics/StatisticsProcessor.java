@@ -10,4 +10,9 @@ public interface StatisticsProcessor {
 	void reportProgress();
 
     void abort();
+
+    /**
+     * @return the progress of the running or last {@link #process()} call, cheap enough to poll at any time.
+     */
+    Progress getProgress();
 }
@@ -0,0 +1,107 @@
+package org.neo4j.statistics;
+
+/**
+ * Keeps the k ids with the highest values seen, in a fixed size min-heap of primitive arrays.
+ */
+public class TopK
+{
+    private final long[] ids;
+    private final long[] values;
+    private int size;
+
+    public TopK( int k )
+    {
+        if ( k < 1 )
+        {
+            throw new IllegalArgumentException( "k must be positive, was " + k );
+        }
+        ids = new long[k];
+        values = new long[k];
+    }
+
+    public void offer( long id, long value )
+    {
+        if ( size < ids.length )
+        {
+            ids[size] = id;
+            values[size] = value;
+            siftUp( size++ );
+        }
+        else if ( value > values[0] )
+        {
+            ids[0] = id;
+            values[0] = value;
+            siftDown( 0 );
+        }
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @return the heap indexes of the kept entries, highest value first.
+     */
+    public int[] sortedIndexes()
+    {
+        int[] indexes = new int[size];
+        for ( int i = 0; i < size; i++ )
+        {
+            int index = i;
+            while ( index > 0 && values[indexes[index - 1]] < values[i] )
+            {
+                indexes[index] = indexes[index - 1];
+                index--;
+            }
+            indexes[index] = i;
+        }
+        return indexes;
+    }
+
+    public long getId( int index )
+    {
+        return ids[index];
+    }
+
+    public long getValue( int index )
+    {
+        return values[index];
+    }
+
+    private void siftUp( int index )
+    {
+        while ( index > 0 )
+        {
+            int parent = ( index - 1 ) / 2;
+            if ( values[parent] <= values[index] ) return;
+            swap( parent, index );
+            index = parent;
+        }
+    }
+
+    private void siftDown( int index )
+    {
+        while ( true )
+        {
+            int smallest = index;
+            int left = index * 2 + 1;
+            int right = left + 1;
+            if ( left < size && values[left] < values[smallest] ) smallest = left;
+            if ( right < size && values[right] < values[smallest] ) smallest = right;
+            if ( smallest == index ) return;
+            swap( smallest, index );
+            index = smallest;
+        }
+    }
+
+    private void swap( int a, int b )
+    {
+        long id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+        long value = values[a];
+        values[a] = values[b];
+        values[b] = value;
+    }
+}
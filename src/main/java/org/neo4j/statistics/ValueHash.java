@@ -0,0 +1,96 @@
+package org.neo4j.statistics;
+
+/**
+ * A 64-bit hash of property values that only depends on the value, not on the JVM or the run, so sketches built from
+ * it in different scans can be merged. Equal values of different types, like 1 and 1L, hash differently. FNV-1a over
+ * the value's bits, finished with the MurmurHash3 mixer so every output bit depends on every input bit.
+ */
+public class ValueHash
+{
+    private static final long FNV_OFFSET = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    private ValueHash()
+    {
+    }
+
+    public static long hash( Object value )
+    {
+        Class<?> type = value.getClass();
+        long h = mix( FNV_OFFSET, type.getName().hashCode() );
+        if ( type == String.class ) return finish( mix( h, (String) value ) );
+        if ( type == Integer.class ) return finish( mix( h, (Integer) value ) );
+        if ( type == Long.class ) return finish( mix( h, (Long) value ) );
+        if ( type == Double.class ) return finish( mix( h, Double.doubleToLongBits( (Double) value ) ) );
+        if ( type == Float.class ) return finish( mix( h, Float.floatToIntBits( (Float) value ) ) );
+        if ( type == Boolean.class ) return finish( mix( h, (Boolean) value ? 1 : 0 ) );
+        if ( type == Short.class ) return finish( mix( h, (Short) value ) );
+        if ( type == Byte.class ) return finish( mix( h, (Byte) value ) );
+        if ( type == Character.class ) return finish( mix( h, (Character) value ) );
+        if ( type == String[].class )
+        {
+            for ( String element : (String[]) value ) h = mix( mix( h, element ), element.length() );
+        }
+        else if ( type == int[].class )
+        {
+            for ( int element : (int[]) value ) h = mix( h, element );
+        }
+        else if ( type == long[].class )
+        {
+            for ( long element : (long[]) value ) h = mix( h, element );
+        }
+        else if ( type == double[].class )
+        {
+            for ( double element : (double[]) value ) h = mix( h, Double.doubleToLongBits( element ) );
+        }
+        else if ( type == float[].class )
+        {
+            for ( float element : (float[]) value ) h = mix( h, Float.floatToIntBits( element ) );
+        }
+        else if ( type == byte[].class )
+        {
+            for ( byte element : (byte[]) value ) h = mix( h, element );
+        }
+        else if ( type == short[].class )
+        {
+            for ( short element : (short[]) value ) h = mix( h, element );
+        }
+        else if ( type == char[].class )
+        {
+            for ( char element : (char[]) value ) h = mix( h, element );
+        }
+        else if ( type == boolean[].class )
+        {
+            for ( boolean element : (boolean[]) value ) h = mix( h, element ? 1 : 0 );
+        }
+        else
+        {
+            h = mix( h, value.hashCode() );
+        }
+        return finish( h );
+    }
+
+    private static long mix( long h, String value )
+    {
+        for ( int i = 0; i < value.length(); i++ )
+        {
+            h = ( h ^ value.charAt( i ) ) * FNV_PRIME;
+        }
+        return h;
+    }
+
+    private static long mix( long h, long value )
+    {
+        return ( h ^ value ) * FNV_PRIME;
+    }
+
+    private static long finish( long h )
+    {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
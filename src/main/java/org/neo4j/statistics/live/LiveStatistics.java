@@ -0,0 +1,322 @@
+package org.neo4j.statistics.live;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.PropertyContainer;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.event.PropertyEntry;
+import org.neo4j.graphdb.event.TransactionData;
+import org.neo4j.graphdb.event.TransactionEventHandler;
+import org.neo4j.helpers.collection.IteratorUtil;
+import org.neo4j.statistics.Bucketing;
+import org.neo4j.statistics.ConcurrentKeyedCounter;
+import org.neo4j.statistics.Counter;
+import org.neo4j.statistics.KeyedCounter;
+import org.neo4j.tooling.GlobalGraphOperations;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Relationship type counts, the degree histogram and property type counts of a running database, seeded by one scan
+ * and then kept up to date from every committed transaction, so that an embedding application can read them at any
+ * time without rescanning. Each transaction's changes are worked out in {@link #beforeCommit(TransactionData)}, while
+ * the entities can still be read, and only applied once the transaction has committed. Committing threads count into
+ * cells of their own, so concurrent commits never contend.
+ * <p>
+ * Transactions committed while the seeding scan runs may be counted twice or not at all, so register on a database
+ * that is not being written to, or {@link #seed()} again afterwards.
+ */
+public class LiveStatistics implements TransactionEventHandler<LiveStatistics.Delta>
+{
+    private static final String NODES = "nodes";
+    private static final String RELATIONSHIPS = "relationships";
+    private static final String PROPERTIES = "properties";
+
+    private final GraphDatabaseService graphDb;
+    private final Bucketing bucketing;
+    private volatile Counts counts;
+
+    public LiveStatistics( GraphDatabaseService graphDb, Bucketing bucketing )
+    {
+        this.graphDb = graphDb;
+        this.bucketing = bucketing;
+        this.counts = new Counts();
+    }
+
+    /**
+     * Seeds the statistics from a scan of the database and keeps them up to date from then on.
+     */
+    public static LiveStatistics register( GraphDatabaseService graphDb, Bucketing bucketing )
+    {
+        LiveStatistics statistics = new LiveStatistics( graphDb, bucketing );
+        graphDb.registerTransactionEventHandler( statistics );
+        statistics.seed();
+        return statistics;
+    }
+
+    public void unregister()
+    {
+        graphDb.unregisterTransactionEventHandler( this );
+    }
+
+    /**
+     * Replaces the statistics with those of a full scan.
+     */
+    public void seed()
+    {
+        Delta scanned = new Delta();
+        for ( Node node : GlobalGraphOperations.at( graphDb ).getAllNodes() )
+        {
+            scanned.nodes++;
+            scanned.degrees.incForKey( bucketing.getChunkKeyForCount( IteratorUtil.count( node.getRelationships() ) ) );
+            scanned.addProperties( node, 1 );
+            for ( Relationship rel : node.getRelationships( Direction.OUTGOING ) )
+            {
+                scanned.relationships++;
+                scanned.types.incForKey( rel.getType().name() );
+                scanned.addProperties( rel, 1 );
+            }
+        }
+        Counts seeded = new Counts();
+        seeded.apply( scanned );
+        counts = seeded;
+    }
+
+    @Override
+    public Delta beforeCommit( TransactionData data ) throws Exception
+    {
+        Delta delta = new Delta();
+        Map<Node, Long> degreeChanges = new HashMap<Node, Long>();
+        for ( Relationship rel : data.createdRelationships() )
+        {
+            delta.relationships++;
+            delta.types.incForKey( rel.getType().name() );
+            changeDegrees( degreeChanges, rel, 1 );
+        }
+        for ( Relationship rel : data.deletedRelationships() )
+        {
+            delta.relationships--;
+            delta.types.incForKey( rel.getType().name(), -1 );
+            changeDegrees( degreeChanges, rel, -1 );
+        }
+        Set<Node> createdNodes = new HashSet<Node>();
+        for ( Node node : data.createdNodes() )
+        {
+            createdNodes.add( node );
+            delta.nodes++;
+            if ( !degreeChanges.containsKey( node ) )
+            {
+                delta.degrees.incForKey( bucketing.getChunkKeyForCount( 0 ) );
+            }
+        }
+        for ( Node node : data.deletedNodes() )
+        {
+            delta.nodes--;
+            if ( !degreeChanges.containsKey( node ) )
+            {
+                delta.degrees.incForKey( bucketing.getChunkKeyForCount( 0 ), -1 );
+            }
+        }
+        for ( Map.Entry<Node, Long> degreeChange : degreeChanges.entrySet() )
+        {
+            Node node = degreeChange.getKey();
+            long change = degreeChange.getValue();
+            boolean created = createdNodes.contains( node );
+            boolean deleted = data.isDeleted( node );
+            // A deleted node has lost all its relationships in this transaction, a created one has only new ones
+            long degreeAfter = deleted ? 0 : created ? change : IteratorUtil.count( node.getRelationships() );
+            if ( !created ) delta.degrees.incForKey( bucketing.getChunkKeyForCount( degreeAfter - change ), -1 );
+            if ( !deleted ) delta.degrees.incForKey( bucketing.getChunkKeyForCount( degreeAfter ) );
+        }
+        countPropertyChanges( delta, data.assignedNodeProperties(), data.removedNodeProperties() );
+        countPropertyChanges( delta, data.assignedRelationshipProperties(), data.removedRelationshipProperties() );
+        return delta;
+    }
+
+    private static void changeDegrees( Map<Node, Long> degreeChanges, Relationship rel, long change )
+    {
+        Node start = rel.getStartNode();
+        Node end = rel.getEndNode();
+        changeDegree( degreeChanges, start, change );
+        if ( !end.equals( start ) ) changeDegree( degreeChanges, end, change );
+    }
+
+    private static void changeDegree( Map<Node, Long> degreeChanges, Node node, long change )
+    {
+        Long previous = degreeChanges.get( node );
+        degreeChanges.put( node, previous == null ? change : previous + change );
+    }
+
+    private static <T extends PropertyContainer> void countPropertyChanges( Delta delta,
+        Iterable<PropertyEntry<T>> assigned, Iterable<PropertyEntry<T>> removed )
+    {
+        for ( PropertyEntry<T> entry : assigned )
+        {
+            if ( entry.previouslyCommitedValue() != null ) delta.changeProperty( entry.previouslyCommitedValue(), -1 );
+            delta.changeProperty( entry.value(), 1 );
+        }
+        for ( PropertyEntry<T> entry : removed )
+        {
+            if ( entry.previouslyCommitedValue() != null ) delta.changeProperty( entry.previouslyCommitedValue(), -1 );
+        }
+    }
+
+    @Override
+    public void afterCommit( TransactionData data, Delta delta )
+    {
+        counts.apply( delta );
+    }
+
+    @Override
+    public void afterRollback( TransactionData data, Delta delta )
+    {
+    }
+
+    public long getNodeCount()
+    {
+        return counts.totals.getForKey( NODES );
+    }
+
+    public long getRelationshipCount()
+    {
+        return counts.totals.getForKey( RELATIONSHIPS );
+    }
+
+    public long getPropertyCount()
+    {
+        return counts.totals.getForKey( PROPERTIES );
+    }
+
+    public long getRelationshipCount( String type )
+    {
+        return counts.types.getForKey( type );
+    }
+
+    /**
+     * @return the number of nodes with a degree in the bucket of the given degree.
+     */
+    public long getNodesWithDegree( long degree )
+    {
+        return counts.degrees.getForKey( bucketing.getChunkKeyForCount( degree ) );
+    }
+
+    public long getPropertyCount( Class<?> type )
+    {
+        return counts.propertyTypes.getForKey( type );
+    }
+
+    public Map<String, Counter> getRelationshipTypeCounts()
+    {
+        return withoutZeroes( counts.types.snapshot() );
+    }
+
+    /**
+     * @return the number of nodes per degree bucket, keyed by the lowest degree of the bucket.
+     */
+    public Map<Long, Counter> getDegreeHistogram()
+    {
+        Map<Long, Counter> histogram = new TreeMap<Long, Counter>();
+        for ( Map.Entry<Long, Counter> bucket : withoutZeroes( counts.degrees.snapshot() ).entrySet() )
+        {
+            histogram.put( bucketing.getCountBaseForChunkKey( bucket.getKey() ), bucket.getValue() );
+        }
+        return histogram;
+    }
+
+    public Map<Class, Counter> getPropertyTypeCounts()
+    {
+        return withoutZeroes( counts.propertyTypes.snapshot() );
+    }
+
+    private static <KEY> Map<KEY, Counter> withoutZeroes( KeyedCounter<KEY> counter )
+    {
+        Map<KEY, Counter> result = new HashMap<KEY, Counter>();
+        for ( Map.Entry<KEY, Counter> entry : counter.getCounters().entrySet() )
+        {
+            if ( entry.getValue().getCount() != 0 ) result.put( entry.getKey(), entry.getValue() );
+        }
+        return result;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder result = new StringBuilder();
+        result.append( String.format( "Nodes: %d, relationships: %d, properties: %d\n",
+            getNodeCount(), getRelationshipCount(), getPropertyCount() ) );
+        result.append( "Type\t\tCount\n" );
+        for ( Map.Entry<String, Counter> entry : getRelationshipTypeCounts().entrySet() )
+        {
+            result.append( entry.getKey() ).append( "\t\t" ).append( entry.getValue().getCount() ).append( "\n" );
+        }
+        result.append( "Degree\t\tNodes\n" );
+        for ( Map.Entry<Long, Counter> entry : getDegreeHistogram().entrySet() )
+        {
+            result.append( entry.getKey() ).append( "\t\t" ).append( entry.getValue().getCount() ).append( "\n" );
+        }
+        result.append( "Property type\tCount\n" );
+        for ( Map.Entry<Class, Counter> entry : getPropertyTypeCounts().entrySet() )
+        {
+            result.append( entry.getKey().getSimpleName() ).append( "\t\t" ).append( entry.getValue().getCount() ).append( "\n" );
+        }
+        return result.toString();
+    }
+
+    /**
+     * The changes of one transaction, worked out before it commits.
+     */
+    public static class Delta
+    {
+        private final KeyedCounter<String> types = new KeyedCounter<String>();
+        private final KeyedCounter<Long> degrees = new KeyedCounter<Long>();
+        private final KeyedCounter<Class> propertyTypes = new KeyedCounter<Class>();
+        private long nodes;
+        private long relationships;
+        private long properties;
+
+        void addProperties( PropertyContainer entity, long change )
+        {
+            for ( String key : entity.getPropertyKeys() )
+            {
+                changeProperty( entity.getProperty( key ), change );
+            }
+        }
+
+        void changeProperty( Object value, long change )
+        {
+            properties += change;
+            propertyTypes.incForKey( value.getClass(), change );
+        }
+    }
+
+    private static class Counts
+    {
+        private final ConcurrentKeyedCounter<String> totals = new ConcurrentKeyedCounter<String>();
+        private final ConcurrentKeyedCounter<String> types = new ConcurrentKeyedCounter<String>();
+        private final ConcurrentKeyedCounter<Long> degrees = new ConcurrentKeyedCounter<Long>();
+        private final ConcurrentKeyedCounter<Class> propertyTypes = new ConcurrentKeyedCounter<Class>();
+
+        void apply( Delta delta )
+        {
+            if ( delta.nodes != 0 ) totals.incForKey( NODES, delta.nodes );
+            if ( delta.relationships != 0 ) totals.incForKey( RELATIONSHIPS, delta.relationships );
+            if ( delta.properties != 0 ) totals.incForKey( PROPERTIES, delta.properties );
+            addAll( types, delta.types );
+            addAll( degrees, delta.degrees );
+            addAll( propertyTypes, delta.propertyTypes );
+        }
+
+        private static <KEY> void addAll( ConcurrentKeyedCounter<KEY> counter, KeyedCounter<KEY> changes )
+        {
+            for ( Map.Entry<KEY, Counter> change : changes.getCounters().entrySet() )
+            {
+                if ( change.getValue().getCount() != 0 ) counter.incForKey( change.getKey(), change.getValue().getCount() );
+            }
+        }
+    }
+}
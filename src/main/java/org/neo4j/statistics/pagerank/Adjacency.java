@@ -0,0 +1,23 @@
+package org.neo4j.statistics.pagerank;
+
+/**
+ * Read-only adjacency snapshot indexed by dense node index, see {@link org.neo4j.statistics.store.IdMapper}, as
+ * consumed by the rank algorithms. Implementations must allow concurrent reads.
+ */
+interface Adjacency {
+    int nodeCount();
+
+    long edgeCount();
+
+    int outDegree(int node);
+
+    /**
+     * @return the neighbour at the given index, in ascending neighbour order.
+     */
+    int neighbour(int node, int index);
+
+    /**
+     * @return the sum of the values of the neighbours of the node, added in ascending neighbour order.
+     */
+    double sumOf(int node, RankVector values);
+}
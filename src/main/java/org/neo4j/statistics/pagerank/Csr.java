@@ -0,0 +1,101 @@
+package org.neo4j.statistics.pagerank;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.statistics.store.IdMapper;
+import org.neo4j.statistics.store.RelationshipRecords;
+import org.neo4j.statistics.store.StoreAccess;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Compressed sparse row snapshot of the relationships, indexed by node. The neighbours of node v are
+ * targets[offsets[v]] until targets[offsets[v + 1]], in ascending order. Which neighbours are kept is
+ * decided by the direction the snapshot was built for, outDegree always counts outgoing relationships.
+ */
+class Csr implements Adjacency {
+    final int nodeCount;
+    final int[] offsets;
+    final int[] targets;
+    final int[] outDegree;
+
+    Csr(int[] offsets, int[] targets, int[] outDegree) {
+        this.nodeCount = outDegree.length;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.outDegree = outDegree;
+    }
+
+    int degree(int node) {
+        return offsets[node + 1] - offsets[node];
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    public long edgeCount() {
+        return targets.length;
+    }
+
+    public int outDegree(int node) {
+        return outDegree[node];
+    }
+
+    public int neighbour(int node, int index) {
+        return targets[offsets[node] + index];
+    }
+
+    public double sumOf(int node, RankVector values) {
+        double sum = 0;
+        for (int i = offsets[node], end = offsets[node + 1]; i < end; i++) {
+            sum += values.get(targets[i]);
+        }
+        return sum;
+    }
+
+    /**
+     * Builds a snapshot indexed by the dense indexes of the given mapper.
+     */
+    static Csr build(GraphDatabaseService graphDb, Direction direction, IdMapper ids) throws IOException {
+        StoreAccess store = new StoreAccess(graphDb);
+        store.flush();
+        RelationshipRecords rels = new RelationshipRecords(
+                store.getStoreFile(StoreAccess.RELATIONSHIP_STORE), store.getHighId(Relationship.class));
+
+        int nodeCount = ids.size();
+        int[] outDegree = new int[nodeCount];
+        int[] offsets = new int[nodeCount + 1];
+        long relCount = rels.getHighId();
+        for (long rel = 0; rel < relCount; rel++) {
+            if (!rels.inUse(rel)) continue;
+            int start = ids.toDense(rels.getFirstNode(rel));
+            int end = ids.toDense(rels.getSecondNode(rel));
+            outDegree[start]++;
+            if (direction != Direction.INCOMING) offsets[start + 1]++;
+            if (direction != Direction.OUTGOING) offsets[end + 1]++;
+        }
+        long edges = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            edges += offsets[node + 1];
+            if (edges >= Integer.MAX_VALUE) throw new IllegalArgumentException("Too many relationships.");
+            offsets[node + 1] = (int) edges;
+        }
+
+        int[] targets = new int[(int) edges];
+        int[] cursor = Arrays.copyOf(offsets, nodeCount);
+        for (long rel = 0; rel < relCount; rel++) {
+            if (!rels.inUse(rel)) continue;
+            int start = ids.toDense(rels.getFirstNode(rel));
+            int end = ids.toDense(rels.getSecondNode(rel));
+            if (direction != Direction.INCOMING) targets[cursor[start]++] = end;
+            if (direction != Direction.OUTGOING) targets[cursor[end]++] = start;
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            Arrays.sort(targets, offsets[node], offsets[node + 1]);
+        }
+        return new Csr(offsets, targets, outDegree);
+    }
+}
@@ -0,0 +1,269 @@
+package org.neo4j.statistics.pagerank;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.statistics.store.IdMapper;
+import org.neo4j.statistics.store.StoreAccess;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Memory mapped adjacency snapshot written by {@link CsrFileWriter}. All sections are big-endian:
+ * <pre>
+ * 0   long  magic
+ * 8   int   version
+ * 12  int   direction
+ * 16  long  high id h of the node store
+ * 24  long  node count n, the number of node ids in use
+ * 32  long  edge count
+ * 40  long  store creation time
+ * 48  long  store random identifier
+ * 56  long  store last committed transaction
+ * 64  int   neighbour encoding, 0 for fixed width ints, 1 for varint deltas
+ * 68  int   unused
+ * 72        in-use bitmap of node ids, (h + 63) / 64 longs
+ *           out degrees, n ints, padded to 8 bytes
+ *           offsets, n + 1 longs, relative to the start of the neighbour lists
+ *           neighbour lists, ascending node indexes, either as ints or as unsigned varint deltas, the first one from 0
+ * </pre>
+ * Nodes are identified by their dense index as given by the {@link IdMapper} over the in-use bitmap.
+ * Snapshots that are only streamed, like the incoming one power iteration sums over, keep the smaller varint deltas.
+ * Snapshots written for random access, like the outgoing one Monte Carlo walks pick neighbours from, keep ints so that
+ * a neighbour is one read rather than a decode of the list up to it. The file is mapped in segments of at most 1GB.
+ * Longs and ints never straddle a segment since their sections are aligned, varints are read byte by byte.
+ */
+class CsrFile implements Adjacency {
+    static final long MAGIC = 0x4E454F435352L;
+    static final int VERSION = 4;
+    static final int HEADER_SIZE = 72;
+    static final int FIXED_WIDTH = 0;
+    static final int VARINT_DELTAS = 1;
+
+    private static final int SEGMENT_BITS = 30;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1;
+
+    private final File file;
+    private final MappedByteBuffer[] segments;
+    private final Direction direction;
+    private final IdMapper ids;
+    private final int nodeCount;
+    private final long edgeCount;
+    private final long creationTime;
+    private final long randomIdentifier;
+    private final long lastCommittedTxId;
+    private final boolean randomAccess;
+    private final long degreeStart;
+    private final long offsetStart;
+    private final long neighbourStart;
+
+    CsrFile(File file) throws IOException {
+        this.file = file;
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            long size = channel.size();
+            if (size < HEADER_SIZE) throw new IOException("Not a CSR snapshot: " + file);
+            segments = new MappedByteBuffer[(int) ((size + SEGMENT_MASK) >>> SEGMENT_BITS)];
+            for (int i = 0; i < segments.length; i++) {
+                long position = (long) i << SEGMENT_BITS;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(SEGMENT_MASK + 1, size - position));
+            }
+        } finally {
+            raf.close();
+        }
+        if (getLong(0) != MAGIC) throw new IOException("Not a CSR snapshot: " + file);
+        if (getInt(8) != VERSION) throw new IOException("Unsupported CSR snapshot version " + getInt(8) + ": " + file);
+        direction = Direction.values()[getInt(12)];
+        long highId = getLong(16);
+        long nodes = getLong(24);
+        if (nodes >= Integer.MAX_VALUE) throw new IllegalArgumentException("Too many nodes.");
+        nodeCount = (int) nodes;
+        edgeCount = getLong(32);
+        creationTime = getLong(40);
+        randomIdentifier = getLong(48);
+        lastCommittedTxId = getLong(56);
+        randomAccess = getInt(64) == FIXED_WIDTH;
+        long[] inUse = new long[(int) (inUseSectionSize(highId) / 8)];
+        for (int word = 0; word < inUse.length; word++) {
+            inUse[word] = getLong(HEADER_SIZE + word * 8L);
+        }
+        ids = new IdMapper(inUse, highId);
+        degreeStart = HEADER_SIZE + inUseSectionSize(highId);
+        offsetStart = degreeStart + degreeSectionSize(nodes);
+        neighbourStart = offsetStart + offsetSectionSize(nodes);
+    }
+
+    static long inUseSectionSize(long highId) {
+        return (highId + 63) / 64 * 8;
+    }
+
+    static long degreeSectionSize(long nodes) {
+        return (nodes * 4 + 7) / 8 * 8;
+    }
+
+    static long offsetSectionSize(long nodes) {
+        return (nodes + 1) * 8;
+    }
+
+    /**
+     * Opens the snapshot in the given file if it was written for the current state of the store, the same direction and
+     * the same neighbour encoding, otherwise writes a new one first.
+     *
+     * @param randomAccess whether {@link #neighbour(int, int)} is called for arbitrary indexes, rather than neighbours
+     * only being streamed through {@link #sumOf(int, RankVector)}.
+     */
+    static CsrFile openOrWrite(GraphDatabaseService graphDb, Direction direction, boolean randomAccess, File file)
+            throws IOException {
+        StoreAccess store = new StoreAccess(graphDb);
+        if (file.exists() && isCurrentVersion(file)) {
+            CsrFile existing = new CsrFile(file);
+            if (existing.matches(store, direction) && existing.randomAccess == randomAccess) return existing;
+        }
+        new CsrFileWriter(graphDb, direction, randomAccess, IdMapper.fromNodeStore(graphDb)).write(file);
+        return new CsrFile(file);
+    }
+
+    private static boolean isCurrentVersion(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            return raf.length() >= HEADER_SIZE && raf.readLong() == MAGIC && raf.readInt() == VERSION;
+        } finally {
+            raf.close();
+        }
+    }
+
+    boolean matches(StoreAccess store, Direction direction) {
+        return this.direction == direction
+                && creationTime == store.getCreationTime()
+                && randomIdentifier == store.getRandomIdentifier()
+                && lastCommittedTxId == store.getLastCommittedTxId();
+    }
+
+    /**
+     * @return a value identifying the store state this snapshot was written from.
+     */
+    long fingerprint() {
+        return (creationTime * 31 + randomIdentifier) * 31 + lastCommittedTxId;
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    IdMapper ids() {
+        return ids;
+    }
+
+    Direction direction() {
+        return direction;
+    }
+
+    boolean isRandomAccess() {
+        return randomAccess;
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    public long edgeCount() {
+        return edgeCount;
+    }
+
+    public int outDegree(int node) {
+        return getInt(degreeStart + node * 4L);
+    }
+
+    /**
+     * One read in a snapshot written for random access, otherwise a decode of the list up to the index.
+     */
+    public int neighbour(int node, int index) {
+        long position = neighbourStart + getLong(offsetStart + node * 8L);
+        if (randomAccess) return getInt(position + index * 4L);
+        int neighbour = 0;
+        for (int i = 0; i <= index; i++) {
+            long delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = getByte(position++);
+                delta |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            neighbour += delta;
+        }
+        return neighbour;
+    }
+
+    public double sumOf(int node, RankVector values) {
+        long position = neighbourStart + getLong(offsetStart + node * 8L);
+        long end = neighbourStart + getLong(offsetStart + (node + 1) * 8L);
+        double sum = 0;
+        if (randomAccess) {
+            for (; position < end; position += 4) {
+                sum += values.get(getInt(position));
+            }
+            return sum;
+        }
+        int neighbour = 0;
+        while (position < end) {
+            long delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = getByte(position++);
+                delta |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            neighbour += delta;
+            sum += values.get(neighbour);
+        }
+        return sum;
+    }
+
+    long[] neighbours(int node) {
+        long position = neighbourStart + getLong(offsetStart + node * 8L);
+        long end = neighbourStart + getLong(offsetStart + (node + 1) * 8L);
+        if (randomAccess) {
+            long[] result = new long[(int) ((end - position) / 4)];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = getInt(position + i * 4L);
+            }
+            return result;
+        }
+        long[] result = new long[8];
+        int count = 0;
+        long neighbour = 0;
+        while (position < end) {
+            long delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = getByte(position++);
+                delta |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            neighbour += delta;
+            if (count == result.length) result = Arrays.copyOf(result, count * 2);
+            result[count++] = neighbour;
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private byte getByte(long position) {
+        return segments[(int) (position >>> SEGMENT_BITS)].get((int) (position & SEGMENT_MASK));
+    }
+
+    private int getInt(long position) {
+        return segments[(int) (position >>> SEGMENT_BITS)].getInt((int) (position & SEGMENT_MASK));
+    }
+
+    private long getLong(long position) {
+        return segments[(int) (position >>> SEGMENT_BITS)].getLong((int) (position & SEGMENT_MASK));
+    }
+}
@@ -0,0 +1,170 @@
+package org.neo4j.statistics.pagerank;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.statistics.store.IdMapper;
+import org.neo4j.statistics.store.NodeRecords;
+import org.neo4j.statistics.store.RelationshipChains;
+import org.neo4j.statistics.store.RelationshipRecords;
+import org.neo4j.statistics.store.StoreAccess;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Writes a {@link CsrFile} by walking the relationship chain of each node in use, in id order. Every section is streamed
+ * to its own position in the file, so memory use is bounded by the largest degree rather than the graph size.
+ */
+class CsrFileWriter {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final StoreAccess store;
+    private final Direction direction;
+    private final boolean randomAccess;
+    private final IdMapper ids;
+    private int[] neighbours = new int[64];
+    private long edges;
+
+    CsrFileWriter(GraphDatabaseService graphDb, Direction direction, boolean randomAccess, IdMapper ids) {
+        this.store = new StoreAccess(graphDb);
+        this.direction = direction;
+        this.randomAccess = randomAccess;
+        this.ids = ids;
+    }
+
+    void write(File file) throws IOException {
+        store.flush();
+        NodeRecords nodes = new NodeRecords(store.getStoreFile(StoreAccess.NODE_STORE), store.getHighId(Node.class));
+        RelationshipRecords rels = new RelationshipRecords(
+                store.getStoreFile(StoreAccess.RELATIONSHIP_STORE), store.getHighId(Relationship.class));
+        RelationshipChains chains = new RelationshipChains(nodes, rels);
+        long highId = ids.getHighId();
+        int nodeCount = ids.size();
+
+        File tempFile = new File(file.getPath() + ".tmp");
+        RandomAccessFile raf = new RandomAccessFile(tempFile, "rw");
+        try {
+            raf.setLength(0);
+            FileChannel channel = raf.getChannel();
+            long degreeStart = CsrFile.HEADER_SIZE + CsrFile.inUseSectionSize(highId);
+            long offsetStart = degreeStart + CsrFile.degreeSectionSize(nodeCount);
+            long neighbourStart = offsetStart + CsrFile.offsetSectionSize(nodeCount);
+            Section inUseSection = new Section(channel, CsrFile.HEADER_SIZE);
+            Section degreeSection = new Section(channel, degreeStart);
+            Section offsetSection = new Section(channel, offsetStart);
+            Section neighbourSection = new Section(channel, neighbourStart);
+
+            long[] inUse = ids.getInUseBits();
+            for (int word = 0; word < CsrFile.inUseSectionSize(highId) / 8; word++) {
+                inUseSection.putLong(inUse[word]);
+            }
+            for (long node = 0; node < highId; node++) {
+                if (!ids.isMapped(node)) continue;
+                int outDegree = 0;
+                int count = 0;
+                for (long rel = chains.firstInChain(node); rel != StoreAccess.NO_ID; rel = chains.nextInChain(node, rel)) {
+                    long start = rels.getFirstNode(rel);
+                    long end = rels.getSecondNode(rel);
+                    if (start == node) outDegree++;
+                    if (start == node && direction != Direction.INCOMING) count = add(count, ids.toDense(end));
+                    if (end == node && direction != Direction.OUTGOING) count = add(count, ids.toDense(start));
+                }
+                degreeSection.putInt(outDegree);
+                offsetSection.putLong(neighbourSection.written());
+                Arrays.sort(neighbours, 0, count);
+                int previous = 0;
+                for (int i = 0; i < count; i++) {
+                    if (randomAccess) {
+                        neighbourSection.putInt(neighbours[i]);
+                    } else {
+                        neighbourSection.putVarLong(neighbours[i] - previous);
+                        previous = neighbours[i];
+                    }
+                }
+            }
+            offsetSection.putLong(neighbourSection.written());
+            inUseSection.flush();
+            degreeSection.flush();
+            offsetSection.flush();
+            neighbourSection.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(CsrFile.HEADER_SIZE);
+            header.putLong(CsrFile.MAGIC);
+            header.putInt(CsrFile.VERSION);
+            header.putInt(direction.ordinal());
+            header.putLong(highId);
+            header.putLong(nodeCount);
+            header.putLong(edges);
+            header.putLong(store.getCreationTime());
+            header.putLong(store.getRandomIdentifier());
+            header.putLong(store.getLastCommittedTxId());
+            header.putInt(randomAccess ? CsrFile.FIXED_WIDTH : CsrFile.VARINT_DELTAS);
+            header.putInt(0);
+            header.flip();
+            channel.write(header, 0);
+            channel.force(false);
+        } finally {
+            raf.close();
+        }
+        if (!tempFile.renameTo(file)) {
+            throw new IOException("Unable to move " + tempFile + " to " + file);
+        }
+    }
+
+    private int add(int count, int neighbour) {
+        if (count == neighbours.length) neighbours = Arrays.copyOf(neighbours, count * 2);
+        neighbours[count] = neighbour;
+        edges++;
+        return count + 1;
+    }
+
+    private static class Section {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private long position;
+        private long written;
+
+        Section(FileChannel channel, long start) {
+            this.channel = channel;
+            this.position = start;
+        }
+
+        long written() {
+            return written + buffer.position();
+        }
+
+        void putInt(int value) throws IOException {
+            if (buffer.remaining() < 4) flush();
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            if (buffer.remaining() < 8) flush();
+            buffer.putLong(value);
+        }
+
+        void putVarLong(long value) throws IOException {
+            if (buffer.remaining() < 10) flush();
+            while ((value & ~0x7FL) != 0) {
+                buffer.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            written += buffer.limit();
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package org.neo4j.statistics.pagerank;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Monte Carlo PageRank over a snapshot of outgoing relationships. Every round starts one walk from each live node.
+ * A walk continues with probability damping at each step, to a random outgoing neighbour, or to a random node
+ * when it has none, so the visits of all walks estimate the same ranks as {@link PowerIteration}. Each worker owns
+ * a contiguous node range and its own random generator seeded from the run seed. It tallies each walk, which touches
+ * about 1 / (1 - damping) nodes, and then its current batch of walks in small open addressing tables, and adds the
+ * batch to long visit counters shared by all workers every {@link #PUBLISH_WALKS} walks. Memory is three longs per
+ * node however many workers run, and ranks can be read while walking and the run stopped once good enough.
+ * <p>
+ * A rank is the ratio of a node's visits to all visits, so its error bound comes from the variance of that ratio
+ * over walks: per node the squared visits of each walk and the visits times the walk length are summed as well, and
+ * so are the squared walk lengths.
+ */
+class MonteCarlo {
+    private static final double Z_95 = 1.96;
+    private static final int PUBLISH_WALKS = 1024;
+    // Flushes a batch early when its walks were long enough to touch this many nodes
+    private static final int PUBLISH_NODES = 1 << 14;
+    // maxErrorBound looks at evenly spaced nodes beyond this many, so that status stays cheap on large graphs
+    static final int MAX_BOUND_NODES = 1 << 20;
+
+    private final Adjacency outgoing;
+    private final double damping;
+    private final ExecutorService executor;
+    private final List<Worker> workers = new ArrayList<Worker>();
+    private final AtomicLongArray visits;
+    private final AtomicLongArray visitSquares;
+    private final AtomicLongArray visitsTimesLength;
+    private volatile boolean stop;
+
+    MonteCarlo(Adjacency outgoing, double damping, ExecutorService executor, int threads, long seed) {
+        this.outgoing = outgoing;
+        this.damping = damping;
+        this.executor = executor;
+        int n = outgoing.nodeCount();
+        visits = new AtomicLongArray(n);
+        visitSquares = new AtomicLongArray(n);
+        visitsTimesLength = new AtomicLongArray(n);
+        int rangeSize = (n + threads - 1) / Math.max(1, threads);
+        for (int i = 0; i < threads; i++) {
+            int from = Math.min(n, i * rangeSize);
+            workers.add(new Worker(from, Math.min(n, from + rangeSize), new Random(seed + i)));
+        }
+    }
+
+    /**
+     * Runs the given number of walks from every live node, or until {@link #stop()} is called.
+     */
+    void run(int walksPerNode) throws InterruptedException, ExecutionException {
+        for (Worker worker : workers) {
+            worker.rounds = walksPerNode;
+        }
+        for (Future<Void> done : executor.invokeAll(workers)) {
+            done.get();
+        }
+    }
+
+    long walks() {
+        long walks = 0;
+        for (Worker worker : workers) {
+            walks += worker.walks;
+        }
+        return walks;
+    }
+
+    long visits(int node) {
+        return visits.get(node);
+    }
+
+    long totalVisits() {
+        long total = 0;
+        for (Worker worker : workers) {
+            total += worker.totalVisits;
+        }
+        return total;
+    }
+
+    double get(int node) {
+        long total = totalVisits();
+        return total == 0 ? 0 : (double) visits(node) / total;
+    }
+
+    /**
+     * @return the half width of an approximate 95% confidence interval for the rank of the node. The rank r is the
+     * ratio of the node's visits x to all visits l, summed over independent walks, so its variance is estimated as
+     * the sample variance of x - r * l per walk over walks times the squared mean walk length. Every node starts
+     * the same number of walks rather than a random one, so the interval is somewhat wider than needed.
+     */
+    double errorBound(int node) {
+        return errorBound(walks(), totalVisits(), totalLengthSquares(), visits.get(node), visitSquares.get(node),
+                visitsTimesLength.get(node));
+    }
+
+    /**
+     * @return the largest {@link #errorBound(int)} over all nodes, or over {@link #MAX_BOUND_NODES} evenly spaced
+     * nodes on larger graphs.
+     */
+    double maxErrorBound() {
+        long walks = walks();
+        long total = totalVisits();
+        long lengthSquares = totalLengthSquares();
+        if (walks < 2 || total == 0) return 1;
+        int n = outgoing.nodeCount();
+        int stride = Math.max(1, n / MAX_BOUND_NODES);
+        double max = 0;
+        for (int node = 0; node < n; node += stride) {
+            max = Math.max(max, errorBound(walks, total, lengthSquares, visits.get(node), visitSquares.get(node),
+                    visitsTimesLength.get(node)));
+        }
+        return max;
+    }
+
+    private static double errorBound(long walks, long total, long lengthSquares, long visits, long visitSquares,
+                                     long visitsTimesLength) {
+        if (walks < 2 || total == 0) return 1;
+        double rank = (double) visits / total;
+        double residualSquares = visitSquares - 2 * rank * visitsTimesLength + rank * rank * lengthSquares;
+        double variance = Math.max(0, residualSquares) / (walks - 1);
+        double meanLength = (double) total / walks;
+        return Z_95 * Math.sqrt(variance / walks) / meanLength;
+    }
+
+    private long totalLengthSquares() {
+        long total = 0;
+        for (Worker worker : workers) {
+            total += worker.lengthSquares;
+        }
+        return total;
+    }
+
+    double[] ranks() {
+        int n = outgoing.nodeCount();
+        long total = totalVisits();
+        double[] ranks = new double[n];
+        for (int node = 0; total > 0 && node < n; node++) {
+            ranks[node] = (double) visits.get(node) / total;
+        }
+        return ranks;
+    }
+
+    void stop() {
+        stop = true;
+    }
+
+    private class Worker implements Callable<Void> {
+        private final int from;
+        private final int to;
+        private final Random random;
+        // Visits per node of the current walk, cleared after each walk
+        private final NodeTally walk = new NodeTally(1, 16);
+        // Visits, squared visits per walk and visits times walk length per node of the unpublished walks
+        private final NodeTally batch = new NodeTally(3, 1 << 10);
+        private long unpublishedWalks;
+        private long unpublishedVisits;
+        private long unpublishedLengthSquares;
+        private volatile long lengthSquares;
+        private int rounds;
+        private volatile long walks;
+        private volatile long totalVisits;
+
+        Worker(int from, int to, Random random) {
+            this.from = from;
+            this.to = to;
+            this.random = random;
+        }
+
+        public Void call() {
+            try {
+                for (int round = 0; round < rounds; round++) {
+                    for (int node = from; node < to; node++) {
+                        if (stop) return null;
+                        walk(node);
+                        if (unpublishedWalks >= PUBLISH_WALKS || batch.size() >= PUBLISH_NODES) publish();
+                    }
+                }
+            } finally {
+                publish();
+            }
+            return null;
+        }
+
+        /**
+         * Adds the batch to the shared counters before the totals, so that no rank is read against totals that do
+         * not include its visits yet.
+         */
+        private void publish() {
+            for (int i = 0; i < batch.size(); i++) {
+                int node = batch.node(i);
+                visits.addAndGet(node, batch.value(i, 0));
+                visitSquares.addAndGet(node, batch.value(i, 1));
+                visitsTimesLength.addAndGet(node, batch.value(i, 2));
+            }
+            batch.clear();
+            totalVisits += unpublishedVisits;
+            lengthSquares += unpublishedLengthSquares;
+            walks += unpublishedWalks;
+            unpublishedVisits = 0;
+            unpublishedLengthSquares = 0;
+            unpublishedWalks = 0;
+        }
+
+        private void walk(int start) {
+            int n = outgoing.nodeCount();
+            int node = start;
+            int steps = 0;
+            while (true) {
+                // Add first, adding may grow the table and replace values
+                int index = walk.add(node);
+                walk.values[index]++;
+                steps++;
+                if (random.nextDouble() >= damping) {
+                    endWalk(steps);
+                    return;
+                }
+                int degree = outgoing.outDegree(node);
+                if (degree > 0) {
+                    node = outgoing.neighbour(node, random.nextInt(degree));
+                } else {
+                    node = random.nextInt(n);
+                }
+            }
+        }
+
+        private void endWalk(int steps) {
+            for (int i = 0; i < walk.size(); i++) {
+                long count = walk.value(i, 0);
+                int index = batch.add(walk.node(i));
+                batch.values[index] += count;
+                batch.values[index + 1] += count * count;
+                batch.values[index + 2] += count * steps;
+            }
+            walk.clear();
+            unpublishedWalks++;
+            unpublishedVisits += steps;
+            unpublishedLengthSquares += (long) steps * steps;
+        }
+    }
+
+    /**
+     * A few long columns per node for the nodes added since the last {@link #clear()}, in an open addressing table
+     * that remembers its used slots, so clearing costs the number of nodes added rather than the table size.
+     */
+    static final class NodeTally {
+        private static final int EMPTY = -1;
+
+        private final int columns;
+        private int[] nodes;
+        // Row per slot, columns next to each other, indexed by what add returns
+        long[] values;
+        private int[] used;
+        private int size;
+
+        NodeTally(int columns, int capacity) {
+            this.columns = columns;
+            allocate(Integer.highestOneBit(Math.max(2, capacity) * 2 - 1));
+        }
+
+        /**
+         * @return the index in {@link #values} of the node's first column, adding the node if it is new.
+         */
+        int add(int node) {
+            int mask = nodes.length - 1;
+            int slot = (int) ((node * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+            while (nodes[slot] != node) {
+                if (nodes[slot] == EMPTY) {
+                    if ((size + 1) * 2 > nodes.length) {
+                        grow();
+                        return add(node);
+                    }
+                    nodes[slot] = node;
+                    used[size++] = slot;
+                    return slot * columns;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return slot * columns;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int node(int i) {
+            return nodes[used[i]];
+        }
+
+        long value(int i, int column) {
+            return values[used[i] * columns + column];
+        }
+
+        void clear() {
+            for (int i = 0; i < size; i++) {
+                int slot = used[i];
+                nodes[slot] = EMPTY;
+                Arrays.fill(values, slot * columns, (slot + 1) * columns, 0);
+            }
+            size = 0;
+        }
+
+        private void grow() {
+            int[] oldNodes = nodes;
+            long[] oldValues = values;
+            int[] oldUsed = used;
+            int oldSize = size;
+            allocate(oldNodes.length * 2);
+            for (int i = 0; i < oldSize; i++) {
+                int oldSlot = oldUsed[i];
+                int index = add(oldNodes[oldSlot]);
+                System.arraycopy(oldValues, oldSlot * columns, values, index, columns);
+            }
+        }
+
+        private void allocate(int capacity) {
+            nodes = new int[capacity];
+            Arrays.fill(nodes, EMPTY);
+            values = new long[capacity * columns];
+            used = new int[capacity / 2 + 1];
+            size = 0;
+        }
+    }
+}
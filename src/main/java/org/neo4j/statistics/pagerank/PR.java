@@ -1,124 +1,208 @@
 package org.neo4j.statistics.pagerank;
 
-import org.neo4j.graphdb.*;
-import org.neo4j.helpers.collection.IteratorUtil;
-import org.neo4j.kernel.AbstractGraphDatabase;
-
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Random;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.statistics.store.IdMapper;
+import org.neo4j.statistics.store.StoreAccess;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 class PR {
     public static final int AVAILABLE_PROCS = Runtime.getRuntime().availableProcessors();
+    public static final double DAMPING = 0.85;
+    public static final double TOLERANCE = 1e-9;
+    public static final int MAX_ITERATIONS = 200;
+    public static final long SEED = 1337;
+    public static final String CHECKPOINT_FILE = "pagerank-ranks.ckpt";
+    public static final long CHECKPOINT_INTERVAL = 60 * 1000;
+    public static final int WRITE_BATCH_SIZE = 50000;
+
     private GraphDatabaseService graphDb;
     private ExecutorService executorService;
-    private List<Walker> walkers = new ArrayList<Walker>();
-    private Random random = new Random(1337);
-    private double[] values;
-    private int size;
-
-    public PR(GraphDatabaseService graphDb) {
+    private ExecutorService runner;
+    private volatile Future<?> run;
+    private volatile boolean stopped;
+    private volatile boolean completed;
+    private volatile Exception failure;
+    private PowerIteration iteration;
+    private MonteCarlo monteCarlo;
+    private IdMapper ids;
+    private int nodeCount;
+    private int walksPerNode;
+
+    /**
+     * @param walksPerNode the number of Monte Carlo walks to start from each node, or 0 to use power iteration.
+     * @param floats whether power iteration keeps ranks as floats rather than doubles.
+     */
+    public PR(GraphDatabaseService graphDb, int walksPerNode, boolean floats) throws IOException {
+        if (floats && walksPerNode > 0) {
+            throw new IllegalArgumentException("Float ranks are only supported by power iteration, not Monte Carlo");
+        }
         this.graphDb = graphDb;
-        this.executorService = new ScheduledThreadPoolExecutor(AVAILABLE_PROCS);
-        long longSize = ((AbstractGraphDatabase)graphDb).getNodeManager().getHighestPossibleIdInUse(Node.class);
-        if (longSize >= Integer.MAX_VALUE) throw new IllegalArgumentException("Too many nodes.");
-        size = (int) longSize;
-        values = new double[size];
-        Arrays.fill(values, 1.0/size);
-        System.out.println(String.format("PR size=%d", size));
-    }
-
-    public void start() {
-        for (int i = 0; i < AVAILABLE_PROCS; i++) {
-            addWalker();
+        this.walksPerNode = walksPerNode;
+        long started = System.currentTimeMillis();
+        // Monte Carlo walks pick random outgoing neighbours, power iteration only streams the incoming ones
+        Direction direction = walksPerNode > 0 ? Direction.OUTGOING : Direction.INCOMING;
+        File snapshot = new StoreAccess(graphDb).getStoreFile(snapshotFile(direction));
+        CsrFile adjacency = CsrFile.openOrWrite(graphDb, direction, walksPerNode > 0, snapshot);
+        ids = adjacency.ids();
+        nodeCount = adjacency.nodeCount();
+        System.out.println(String.format("PR high id=%d nodes=%d rels=%d, snapshot %s took %dms",
+                ids.getHighId(), adjacency.nodeCount(), adjacency.edgeCount(), snapshot, System.currentTimeMillis() - started));
+        this.executorService = Executors.newFixedThreadPool(AVAILABLE_PROCS);
+        this.runner = Executors.newSingleThreadExecutor();
+        if (walksPerNode > 0) {
+            monteCarlo = new MonteCarlo(adjacency, DAMPING, executorService, AVAILABLE_PROCS, SEED);
+        } else {
+            iteration = new PowerIteration(adjacency, DAMPING, executorService, floats);
+            RankCheckpoint checkpoint = RankCheckpoint.open(
+                    new StoreAccess(graphDb).getStoreFile(CHECKPOINT_FILE), adjacency.fingerprint(), adjacency.nodeCount());
+            if (iteration.resumeFrom(checkpoint)) {
+                System.out.println(String.format("Resumed from %s at %s", checkpoint.getFile(), status()));
+            }
+            iteration.checkpointTo(checkpoint, CHECKPOINT_INTERVAL);
         }
     }
 
-    private void addWalker() {
-        int startPos = random.nextInt(size);
-        Walker walker = new Walker(startPos);
-        walkers.add(walker);
-        executorService.submit(walker);
-        System.out.println(String.format("Added walker: %d", startPos));
+    static String snapshotFile(Direction direction) {
+        return "pagerank-" + direction.name().toLowerCase() + ".csr";
     }
 
-    public double get(int id) {
-        if (id >= size) throw new IllegalStateException("No such ID: " + id);
-        return values[id];
+    public void start() {
+        run = runner.submit(new Runnable() {
+            @Override
+            public void run() {
+                long started = System.currentTimeMillis();
+                try {
+                    if (monteCarlo != null) {
+                        monteCarlo.run(walksPerNode);
+                    } else {
+                        iteration.run(TOLERANCE, MAX_ITERATIONS);
+                    }
+                    // A stopped run returns normally but with partial ranks
+                    completed = !stopped;
+                    System.out.println(String.format("PR %s in %dms, %s", completed ? "done" : "stopped",
+                            System.currentTimeMillis() - started, status()));
+                } catch (Exception e) {
+                    failure = e;
+                    e.printStackTrace();
+                }
+            }
+        });
     }
 
-    private double getValueForNode(Node node) {
-        return get((int) node.getId());
+    /**
+     * @return whether a run was started and has finished, whether it completed, failed or was stopped.
+     */
+    public boolean isDone() {
+        return run != null && run.isDone();
     }
 
-    private void setValueForNode(Node node, double value) {
-        int id = (int) node.getId();
-        if (id >= size) throw new IllegalStateException("No such ID: " + id);
-        values[id] = value;
+    /**
+     * @return whether a run completed without failing or being stopped, so that {@link #values()} are final.
+     */
+    public boolean isCompleted() {
+        return completed;
     }
 
-    public void stop() {
-        for (Walker walker : walkers) {
-            walker.stop();
-        }
-        executorService.shutdown();
+    private void checkCompleted() {
+        if (completed) return;
+        if (failure != null) throw new IllegalStateException("PageRank failed, ranks are partial: " + failure);
+        if (stopped) throw new IllegalStateException("PageRank was stopped, ranks are partial, " + status());
+        throw new IllegalStateException("PageRank has not finished, " + status());
     }
 
-    public double[] values() {
-        return values;
+    /**
+     * Waits for the run started by {@link #start()} to finish.
+     */
+    public void awaitDone() throws InterruptedException, ExecutionException {
+        if (run == null) throw new IllegalStateException("PageRank was not started");
+        run.get();
     }
 
-    class Walker implements Runnable {
-        private boolean stop;
+    public double get(long id) {
+        int node = ids.toDense(id);
+        if (node == IdMapper.NOT_MAPPED) throw new IllegalStateException("No such ID: " + id);
+        return rank(node);
+    }
 
-        private int pos;
+    private double rank(int node) {
+        return monteCarlo != null ? monteCarlo.get(node) : iteration.get(node);
+    }
 
-        public Walker(int startPos) {
-            pos = startPos;
-        }
+    public String describe(long id) {
+        if (monteCarlo == null) return Double.toString(get(id));
+        return String.format("%g +/- %g", get(id), monteCarlo.errorBound(ids.toDense(id)));
+    }
 
-        @Override
-        public void run() {
-            try {
-                innerRun();
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-        }
+    /**
+     * @return the node id of the value at the given index of {@link #values()}.
+     */
+    public long idOf(int index) {
+        return ids.toOriginal(index);
+    }
 
-        private void innerRun() {
-            while (!stop) {
+    /**
+     * Stores the final ranks as a property on each node, committing every {@link #WRITE_BATCH_SIZE} nodes. Ranks are
+     * read one node at a time rather than copied into a {@link #values()} array, which float ranks would double.
+     *
+     * @return the number of nodes written, nodes deleted since the snapshot was taken are skipped.
+     * @throws IllegalStateException if the run has not completed.
+     */
+    public long writeBack(String property) {
+        checkCompleted();
+        long written = 0;
+        Transaction tx = graphDb.beginTx();
+        try {
+            for (int i = 0; i < nodeCount; i++) {
                 try {
-                    Node node = graphDb.getNodeById(pos);
-
-                    double rank = 1/size;
-                    for (Relationship rel : node.getRelationships(Direction.INCOMING)) {
-                        Node otherNode = rel.getOtherNode(node);
-                        int otherOutgoing = IteratorUtil.count(otherNode.getRelationships(Direction.OUTGOING));
-//                        System.out.println(String.format("other outgoing from %d: %d", node.getId(), otherOutgoing));
-                        double v = getValueForNode(otherNode) / otherOutgoing;
-                        rank += v;
-//                        System.out.println(String.format("rank for %d: %f %f", node.getId(), rank, v));
-                    }
-
-                    setValueForNode(node, rank);
-//                    System.out.println(String.format("%d <- %f", node.getId(), rank));
+                    graphDb.getNodeById(idOf(i)).setProperty(property, rank(i));
+                    written++;
                 } catch (NotFoundException e) {
-                    System.out.println(String.format("Node %d not found, skipping.", pos));
-                } catch (IllegalStateException e) {
-//                    System.out.println(e.getMessage());
+                    continue;
+                }
+                if (written % WRITE_BATCH_SIZE == 0) {
+                    tx.success();
+                    tx.finish();
+                    tx = graphDb.beginTx();
                 }
-                pos = random.nextInt(size);
             }
+            tx.success();
+        } finally {
+            tx.finish();
         }
+        return written;
+    }
 
-        void stop() {
-            stop = true;
+    public String status() {
+        if (monteCarlo != null) {
+            return String.format("walks=%d visits=%d max error=%g",
+                    monteCarlo.walks(), monteCarlo.totalVisits(), monteCarlo.maxErrorBound());
         }
+        return String.format("iterations=%d delta=%g", iteration.iterations(), iteration.delta());
+    }
 
+    public void stop() {
+        stopped = true;
+        if (monteCarlo != null) monteCarlo.stop();
+        if (iteration != null) iteration.stop();
+        runner.shutdown();
+        executorService.shutdown();
     }
 
+    /**
+     * @return the final ranks, indexed like {@link #idOf(int)}.
+     * @throws IllegalStateException if the run has not completed, the ranks would be partial.
+     */
+    public double[] values() {
+        checkCompleted();
+        return monteCarlo != null ? monteCarlo.ranks() : iteration.ranks();
+    }
 }
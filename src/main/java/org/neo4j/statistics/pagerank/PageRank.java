@@ -6,23 +6,37 @@ import org.neo4j.graphdb.factory.GraphDatabaseFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 
 public class PageRank {
+    private static final int DEFAULT_WALKS_PER_NODE = 100;
+    private static final String USAGE = "Usage: <store path> [float | montecarlo [walks_per_node=%d]]";
 
     private GraphDatabaseService graphDb;
     private File storePath;
     private ExecutorService executorService;
     private ConsoleReader reader;
     private PR pr;
+    private int walksPerNode;
+    private boolean floats;
 
     public static void main(String[] args) throws Exception {
         if (args.length < 1) {
-            println("Missing arg: <store path>");
+            println(USAGE, DEFAULT_WALKS_PER_NODE);
             System.exit(1);
         }
-        PageRank main = new PageRank(args[0]);
+        List<String> options = new ArrayList<String>(Arrays.asList(args).subList(1, args.length));
+        boolean floats = options.remove("float");
+        int walksPerNode = walksPerNode(options);
+        if (floats && walksPerNode > 0) {
+            println("float only applies to power iteration, not montecarlo");
+            println(USAGE, DEFAULT_WALKS_PER_NODE);
+            System.exit(1);
+        }
+        PageRank main = new PageRank(args[0], walksPerNode, floats);
         try {
             main.run();
         } finally {
@@ -30,8 +44,15 @@ public class PageRank {
         }
     }
 
-    public PageRank(String storePath) throws IOException {
+    private static int walksPerNode(List<String> options) {
+        if (options.isEmpty() || !options.get(0).equalsIgnoreCase("montecarlo")) return 0;
+        return options.size() < 2 ? DEFAULT_WALKS_PER_NODE : Integer.parseInt(options.get(1));
+    }
+
+    public PageRank(String storePath, int walksPerNode, boolean floats) throws IOException {
         this.storePath = new File(storePath);
+        this.walksPerNode = walksPerNode;
+        this.floats = floats;
         reader = new ConsoleReader();
     }
 
@@ -46,8 +67,8 @@ public class PageRank {
         while (handleCmd()) ;
     }
 
-    private void startPageRank() {
-        pr = new PR(graphDb);
+    private void startPageRank() throws IOException {
+        pr = new PR(graphDb, walksPerNode, floats);
         pr.start();
     }
 
@@ -64,14 +85,36 @@ public class PageRank {
         String cmd = reader.readLine("> ");
         if (cmd.isEmpty()) return true;
         if (cmd.startsWith("exit") || cmd.equalsIgnoreCase("quit")) return false;
+        if (cmd.startsWith("status")) {
+            println("%s", pr.status());
+            return true;
+        }
+        if ((cmd.startsWith("writeback") || cmd.startsWith("values")) && !pr.isCompleted()) {
+            println(pr.isDone() ? "No final ranks: %s" : "Still running, try again when done: %s", pr.status());
+            return true;
+        }
+        if (cmd.startsWith("writeback")) {
+            String[] parts = cmd.trim().split("\\s+");
+            if (parts.length != 2) {
+                println("Usage: writeback <property>");
+                return true;
+            }
+            long started = System.currentTimeMillis();
+            long written = pr.writeBack(parts[1]);
+            println("Wrote %s to %d nodes in %dms", parts[1], written, System.currentTimeMillis() - started);
+            return true;
+        }
         if (cmd.startsWith("values")) {
-            println("%s", Arrays.toString(pr.values()));
+            double[] values = pr.values();
+            for (int i = 0; i < values.length; i++) {
+                println("%d: %s", pr.idOf(i), values[i]);
+            }
             return true;
         }
 
         try {
-            int id = Integer.parseInt(cmd);
-            println("%d: %s", id, Double.valueOf(pr.get(id)).toString());
+            long id = Long.parseLong(cmd);
+            println("%d: %s", id, pr.describe(id));
         } catch (NumberFormatException e) {
             println("Invalid id: %s", cmd);
             return true;
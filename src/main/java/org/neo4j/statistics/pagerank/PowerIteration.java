@@ -0,0 +1,174 @@
+package org.neo4j.statistics.pagerank;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Synchronous power iteration PageRank over an adjacency snapshot of incoming relationships. Each iteration first
+ * computes every node's contribution rank/outDegree, then pulls the contributions of the incoming neighbours. Both
+ * phases are split into node ranges of a fixed size run on the executor, and partial sums are combined in range
+ * order, so the ranks are identical regardless of the number of threads the executor runs them on. Rank held by
+ * nodes without outgoing relationships is spread evenly over all nodes.
+ */
+class PowerIteration {
+    static final int PARTITION_SIZE = 1 << 12;
+    // Rounding every rank to a float leaves an L1 change of about the float epsilon between iterations forever
+    static final double FLOAT_TOLERANCE = 10 * Math.ulp(1.0f);
+
+    private final Adjacency incoming;
+    private final double damping;
+    private final ExecutorService executor;
+    private final List<Callable<Double>> contributionTasks = new ArrayList<Callable<Double>>();
+    private final List<Callable<Double>> pullTasks = new ArrayList<Callable<Double>>();
+    private final boolean floats;
+    private final RankVector contributions;
+    private RankVector ranks;
+    private RankVector next;
+    private double teleport;
+    private RankCheckpoint checkpoint;
+    private long checkpointInterval;
+
+    private volatile int iterations;
+    private volatile double delta = Double.NaN;
+    private volatile boolean stop;
+
+    PowerIteration(Adjacency incoming, double damping, ExecutorService executor) {
+        this(incoming, damping, executor, false);
+    }
+
+    /**
+     * @param floats whether to keep ranks and contributions as floats, halving the memory needed per node.
+     */
+    PowerIteration(Adjacency incoming, double damping, ExecutorService executor, boolean floats) {
+        this.incoming = incoming;
+        this.damping = damping;
+        this.executor = executor;
+        this.floats = floats;
+        int n = incoming.nodeCount();
+        contributions = RankVector.create(n, floats);
+        ranks = RankVector.create(n, floats);
+        next = RankVector.create(n, floats);
+        for (int node = 0; node < n; node++) {
+            ranks.set(node, 1.0 / n);
+        }
+
+        for (int start = 0; start < n; start += PARTITION_SIZE) {
+            final int from = start;
+            final int to = Math.min(n, start + PARTITION_SIZE);
+            contributionTasks.add(new Callable<Double>() {
+                public Double call() {
+                    return contribute(from, to);
+                }
+            });
+            pullTasks.add(new Callable<Double>() {
+                public Double call() {
+                    return pull(from, to);
+                }
+            });
+        }
+    }
+
+    /**
+     * Continues from the ranks saved in the checkpoint, if any. Power iteration converges from any starting vector,
+     * so the checkpoint only needs to belong to the same adjacency snapshot.
+     */
+    boolean resumeFrom(RankCheckpoint checkpoint) {
+        if (!checkpoint.hasRanks()) return false;
+        checkpoint.load(ranks);
+        iterations = checkpoint.iterations();
+        delta = checkpoint.delta();
+        return true;
+    }
+
+    /**
+     * Saves the ranks to the checkpoint between iterations whenever the interval has passed, and when the run ends.
+     */
+    void checkpointTo(RankCheckpoint checkpoint, long intervalMillis) {
+        this.checkpoint = checkpoint;
+        this.checkpointInterval = intervalMillis;
+    }
+
+    /**
+     * Iterates until the L1 distance between two successive rank vectors is below the tolerance, or the maximum
+     * number of iterations is reached, or {@link #stop()} is called. With float ranks the tolerance is at least
+     * {@link #FLOAT_TOLERANCE}, below which rounding rather than convergence decides the distance.
+     */
+    double[] run(double tolerance, int maxIterations) throws InterruptedException, ExecutionException {
+        int n = incoming.nodeCount();
+        double effectiveTolerance = floats ? Math.max(tolerance, FLOAT_TOLERANCE) : tolerance;
+        long lastCheckpoint = System.currentTimeMillis();
+        while (!stop && iterations < maxIterations) {
+            double dangling = sum(executor.invokeAll(contributionTasks));
+            teleport = ((1 - damping) + damping * dangling) / n;
+            double l1 = sum(executor.invokeAll(pullTasks));
+            RankVector previous = ranks;
+            ranks = next;
+            next = previous;
+            delta = l1;
+            iterations++;
+            if (l1 < effectiveTolerance) break;
+            if (checkpoint != null && System.currentTimeMillis() - lastCheckpoint >= checkpointInterval) {
+                checkpoint.save(iterations, delta, ranks);
+                lastCheckpoint = System.currentTimeMillis();
+            }
+        }
+        if (checkpoint != null) checkpoint.save(iterations, delta, ranks);
+        return ranks.toArray();
+    }
+
+    private double contribute(int from, int to) {
+        double dangling = 0;
+        for (int node = from; node < to; node++) {
+            int degree = incoming.outDegree(node);
+            if (degree == 0) {
+                contributions.set(node, 0);
+                dangling += ranks.get(node);
+            } else {
+                contributions.set(node, ranks.get(node) / degree);
+            }
+        }
+        return dangling;
+    }
+
+    private double pull(int from, int to) {
+        double l1 = 0;
+        for (int node = from; node < to; node++) {
+            double rank = teleport + damping * incoming.sumOf(node, contributions);
+            l1 += Math.abs(rank - ranks.get(node));
+            next.set(node, rank);
+        }
+        return l1;
+    }
+
+    private static double sum(List<Future<Double>> partials) throws InterruptedException, ExecutionException {
+        double sum = 0;
+        for (Future<Double> partial : partials) {
+            sum += partial.get();
+        }
+        return sum;
+    }
+
+    double get(int node) {
+        return ranks.get(node);
+    }
+
+    double[] ranks() {
+        return ranks.toArray();
+    }
+
+    int iterations() {
+        return iterations;
+    }
+
+    double delta() {
+        return delta;
+    }
+
+    void stop() {
+        stop = true;
+    }
+}
@@ -0,0 +1,128 @@
+package org.neo4j.statistics.pagerank;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Memory mapped checkpoint of a rank vector, so that an interrupted run can resume from its last saved iteration.
+ * Ranks are written to the slot not holding the last checkpoint, and the header is only switched to that slot once
+ * the ranks are forced to disk, so a crash while saving leaves the previous checkpoint intact:
+ * <pre>
+ * 0   long    magic
+ * 8   int     version
+ * 12  int     current slot, 0 or 1
+ * 16  long    fingerprint of the adjacency snapshot the ranks belong to
+ * 24  long    node count n
+ * 32  long    iterations, -1 if nothing is saved yet
+ * 40  double  L1 delta of the last iteration
+ * 64          slot 0, n doubles
+ *             slot 1, n doubles
+ * </pre>
+ */
+class RankCheckpoint {
+    static final long MAGIC = 0x4E454F52414E4BL;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+
+    private static final int SEGMENT_BITS = 30;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1;
+
+    private final File file;
+    private final MappedByteBuffer[] segments;
+    private final int nodeCount;
+
+    private RankCheckpoint(File file, MappedByteBuffer[] segments, int nodeCount) {
+        this.file = file;
+        this.segments = segments;
+        this.nodeCount = nodeCount;
+    }
+
+    /**
+     * Opens the checkpoint in the given file, starting an empty one if the file is missing or belongs to another
+     * snapshot.
+     */
+    static RankCheckpoint open(File file, long fingerprint, int nodeCount) throws IOException {
+        long size = HEADER_SIZE + 2L * nodeCount * 8;
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            boolean reset = raf.length() != size;
+            raf.setLength(size);
+            FileChannel channel = raf.getChannel();
+            MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((size + SEGMENT_MASK) >>> SEGMENT_BITS)];
+            for (int i = 0; i < segments.length; i++) {
+                long position = (long) i << SEGMENT_BITS;
+                segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, position, Math.min(SEGMENT_MASK + 1, size - position));
+            }
+            RankCheckpoint checkpoint = new RankCheckpoint(file, segments, nodeCount);
+            MappedByteBuffer header = segments[0];
+            if (reset || header.getLong(0) != MAGIC || header.getInt(8) != VERSION
+                    || header.getLong(16) != fingerprint || header.getLong(24) != nodeCount) {
+                header.putLong(0, MAGIC);
+                header.putInt(8, VERSION);
+                header.putInt(12, 0);
+                header.putLong(16, fingerprint);
+                header.putLong(24, nodeCount);
+                header.putLong(32, -1);
+                header.putDouble(40, Double.NaN);
+                header.force();
+            }
+            return checkpoint;
+        } finally {
+            raf.close();
+        }
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    boolean hasRanks() {
+        return iterations() >= 0;
+    }
+
+    int iterations() {
+        return (int) segments[0].getLong(32);
+    }
+
+    double delta() {
+        return segments[0].getDouble(40);
+    }
+
+    void load(RankVector ranks) {
+        long start = slotStart(segments[0].getInt(12));
+        for (int node = 0; node < nodeCount; node++) {
+            ranks.set(node, getDouble(start + node * 8L));
+        }
+    }
+
+    void save(int iterations, double delta, RankVector ranks) {
+        MappedByteBuffer header = segments[0];
+        int slot = 1 - header.getInt(12);
+        long start = slotStart(slot);
+        for (int node = 0; node < nodeCount; node++) {
+            putDouble(start + node * 8L, ranks.get(node));
+        }
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+        header.putLong(32, iterations);
+        header.putDouble(40, delta);
+        header.putInt(12, slot);
+        header.force();
+    }
+
+    private long slotStart(int slot) {
+        return HEADER_SIZE + slot * (nodeCount * 8L);
+    }
+
+    private double getDouble(long position) {
+        return segments[(int) (position >>> SEGMENT_BITS)].getDouble((int) (position & SEGMENT_MASK));
+    }
+
+    private void putDouble(long position, double value) {
+        segments[(int) (position >>> SEGMENT_BITS)].putDouble((int) (position & SEGMENT_MASK), value);
+    }
+}
@@ -0,0 +1,73 @@
+package org.neo4j.statistics.pagerank;
+
+import java.util.Arrays;
+
+/**
+ * Per-node values of a rank algorithm, held either as doubles or, at half the memory and about seven significant
+ * digits, as floats. Arithmetic is always done in double.
+ */
+abstract class RankVector {
+    abstract int size();
+
+    abstract double get(int node);
+
+    abstract void set(int node, double value);
+
+    abstract double[] toArray();
+
+    static RankVector create(int size, boolean floats) {
+        return floats ? new Floats(size) : new Doubles(size);
+    }
+
+    static final class Doubles extends RankVector {
+        private final double[] values;
+
+        Doubles(int size) {
+            values = new double[size];
+        }
+
+        int size() {
+            return values.length;
+        }
+
+        double get(int node) {
+            return values[node];
+        }
+
+        void set(int node, double value) {
+            values[node] = value;
+        }
+
+        double[] toArray() {
+            return Arrays.copyOf(values, values.length);
+        }
+    }
+
+    static final class Floats extends RankVector {
+        private final float[] values;
+
+        Floats(int size) {
+            values = new float[size];
+        }
+
+        int size() {
+            return values.length;
+        }
+
+        double get(int node) {
+            return values[node];
+        }
+
+        void set(int node, double value) {
+            values[node] = (float) value;
+        }
+
+        double[] toArray() {
+            double[] result = new double[values.length];
+            for (int i = 0; i < values.length; i++) {
+                result[i] = values[i];
+            }
+            return result;
+        }
+    }
+}
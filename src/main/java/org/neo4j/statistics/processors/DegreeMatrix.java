@@ -0,0 +1,291 @@
+package org.neo4j.statistics.processors;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.statistics.Bucketing;
+import org.neo4j.statistics.LongHistogram;
+import org.neo4j.statistics.Progress;
+import org.neo4j.statistics.SafePoint;
+import org.neo4j.statistics.ScanVisitor;
+import org.neo4j.statistics.StatisticsProcessor;
+import org.neo4j.statistics.snapshot.SnapshotSource;
+import org.neo4j.statistics.snapshot.StatisticsSnapshot;
+import org.neo4j.statistics.store.NodeRecords;
+import org.neo4j.statistics.store.RelationshipChains;
+import org.neo4j.statistics.store.RelationshipRecords;
+import org.neo4j.statistics.store.StoreAccess;
+import org.neo4j.tooling.GlobalGraphOperations;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Degree histograms per relationship type and direction, from one walk of every node's relationship chain. A cell
+ * is a type and a direction, indexed by type id * 3 + direction in primitive arrays, and its histogram records the
+ * degree of every node that has at least one relationship in it. Loops count once, in the {@link Direction#BOTH}
+ * cell. Raw scans key cells by the store's type ids, API scans by type ids assigned on first sight.
+ */
+public class DegreeMatrix implements StatisticsProcessor, ScanVisitor, SnapshotSource
+{
+    private static final Direction[] DIRECTIONS = { Direction.OUTGOING, Direction.INCOMING, Direction.BOTH };
+    private static final int OUTGOING = 0;
+    private static final int INCOMING = 1;
+    private static final int LOOP = 2;
+    private static final double[] PERCENTILES = { 50, 90, 99, 100 };
+    private static final int INITIAL_TYPES = 16;
+
+    private GraphDatabaseService graphDb;
+    private PrintStream out;
+    private Bucketing bucketing;
+    private boolean raw;
+    private volatile boolean shouldAbort;
+    private final Progress progress = new Progress();
+    private final SafePoint safePoint = new SafePoint( this );
+    private final StoreAccess storeAccess;
+
+    private final Map<String, Integer> typeIds = new HashMap<String, Integer>();
+    private String[] typeNames = new String[INITIAL_TYPES];
+    private int typeCount;
+
+    private LongHistogram[] histograms = new LongHistogram[INITIAL_TYPES * DIRECTIONS.length];
+    private long[] nodeDegrees = new long[INITIAL_TYPES * DIRECTIONS.length];
+    // The cells of the current node's degrees, so only those are recorded and reset
+    private int[] touchedCells = new int[INITIAL_TYPES * DIRECTIONS.length];
+    private int touchedCount;
+
+    public DegreeMatrix( GraphDatabaseService graphDb, PrintStream out, Bucketing bucketing, boolean raw )
+    {
+        this.graphDb = graphDb;
+        this.out = out;
+        this.bucketing = bucketing;
+        this.raw = raw;
+        this.storeAccess = new StoreAccess( graphDb );
+    }
+
+    public void run() throws IOException
+    {
+        if ( raw )
+        {
+            runRaw();
+            return;
+        }
+        progress.start( storeAccess.getHighId( Node.class ) );
+        for ( Node node : GlobalGraphOperations.at( graphDb ).getAllNodes() )
+        {
+            if ( shouldAbort ) return;
+            progress.set( node.getId() + 1 );
+            safePoint.reached();
+            visitNode( node );
+        }
+    }
+
+    private void runRaw() throws IOException
+    {
+        storeAccess.flush();
+        NodeRecords nodes = new NodeRecords( storeAccess.getStoreFile( StoreAccess.NODE_STORE ), storeAccess.getHighId( Node.class ) );
+        RelationshipRecords relationships = new RelationshipRecords(
+            storeAccess.getStoreFile( StoreAccess.RELATIONSHIP_STORE ), storeAccess.getHighId( Relationship.class ) );
+        RelationshipChains chains = new RelationshipChains( nodes, relationships );
+        long highId = nodes.getHighId();
+        progress.start( highId );
+        for ( long id = 0; id < highId; id++ )
+        {
+            if ( ( id & 0xFFFF ) == 0 )
+            {
+                if ( shouldAbort ) return;
+                progress.set( id );
+                safePoint.reached();
+            }
+            if ( !nodes.inUse( id ) ) continue;
+            for ( long relId = chains.firstInChain( id ); relId != StoreAccess.NO_ID; relId = chains.nextInChain( id, relId ) )
+            {
+                count( relationships.getType( relId ), direction( id, relationships.getFirstNode( relId ), relationships.getSecondNode( relId ) ) );
+            }
+            recordNode();
+        }
+        progress.set( highId );
+    }
+
+    @Override
+    public void visitNode( Node node )
+    {
+        long id = node.getId();
+        for ( Relationship rel : node.getRelationships() )
+        {
+            count( typeId( rel.getType().name() ), direction( id, rel.getStartNode().getId(), rel.getEndNode().getId() ) );
+        }
+        recordNode();
+    }
+
+    @Override
+    public void visitRelationship( Relationship rel )
+    {
+    }
+
+    private static int direction( long nodeId, long firstNode, long secondNode )
+    {
+        if ( firstNode == secondNode ) return LOOP;
+        return firstNode == nodeId ? OUTGOING : INCOMING;
+    }
+
+    @Override
+    public void scanFinished()
+    {
+    }
+
+    @Override
+    public String getUnfusableOption()
+    {
+        return raw ? "raw" : null;
+    }
+
+    private int typeId( String name )
+    {
+        Integer id = typeIds.get( name );
+        if ( id != null ) return id;
+        int newId = typeIds.size();
+        typeIds.put( name, newId );
+        ensureType( newId );
+        typeNames[newId] = name;
+        return newId;
+    }
+
+    private void count( int typeId, int direction )
+    {
+        ensureType( typeId );
+        int cell = typeId * DIRECTIONS.length + direction;
+        if ( nodeDegrees[cell]++ == 0 ) touchedCells[touchedCount++] = cell;
+    }
+
+    private void recordNode()
+    {
+        for ( int i = 0; i < touchedCount; i++ )
+        {
+            int cell = touchedCells[i];
+            if ( histograms[cell] == null ) histograms[cell] = new LongHistogram( bucketing, false );
+            histograms[cell].recordCount( nodeDegrees[cell] );
+            nodeDegrees[cell] = 0;
+        }
+        touchedCount = 0;
+    }
+
+    private void ensureType( int typeId )
+    {
+        if ( typeId >= typeCount ) typeCount = typeId + 1;
+        if ( typeId < typeNames.length ) return;
+        int capacity = Math.max( typeNames.length * 2, typeId + 1 );
+        typeNames = Arrays.copyOf( typeNames, capacity );
+        histograms = Arrays.copyOf( histograms, capacity * DIRECTIONS.length );
+        nodeDegrees = Arrays.copyOf( nodeDegrees, capacity * DIRECTIONS.length );
+        touchedCells = Arrays.copyOf( touchedCells, capacity * DIRECTIONS.length );
+    }
+
+    private String typeName( int typeId )
+    {
+        if ( raw && typeNames[typeId] == null ) typeNames[typeId] = storeAccess.getRelationshipTypeName( typeId );
+        return typeNames[typeId];
+    }
+
+    private int typeIdOf( String name )
+    {
+        for ( int typeId = 0; typeId < typeCount; typeId++ )
+        {
+            if ( hasCells( typeId ) && typeName( typeId ).equals( name ) ) return typeId;
+        }
+        return -1;
+    }
+
+    private boolean hasCells( int typeId )
+    {
+        for ( int direction = 0; direction < DIRECTIONS.length; direction++ )
+        {
+            if ( histograms[typeId * DIRECTIONS.length + direction] != null ) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param direction {@link Direction#BOTH} for loops.
+     * @return the degrees of the nodes with at least one relationship of the type in the direction, or null if
+     * there are none.
+     */
+    public LongHistogram getHistogram( String type, Direction direction )
+    {
+        int typeId = typeIdOf( type );
+        return typeId < 0 ? null : histograms[typeId * DIRECTIONS.length + Arrays.asList( DIRECTIONS ).indexOf( direction )];
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder result = new StringBuilder();
+        result.append( "Type\t\tDirection\tNodes\tRels" );
+        for ( double percentile : PERCENTILES )
+        {
+            result.append( "\t" ).append( percentile == 100 ? "max" : "p" + (int) percentile );
+        }
+        result.append( "\n" );
+        for ( int cell = 0; cell < typeCount * DIRECTIONS.length; cell++ )
+        {
+            LongHistogram histogram = histograms[cell];
+            if ( histogram == null ) continue;
+            result.append( typeName( cell / DIRECTIONS.length ) ).append( "\t\t" )
+                .append( DIRECTIONS[cell % DIRECTIONS.length] ).append( "\t" )
+                .append( histogram.getTotalSamples() ).append( "\t" )
+                .append( histogram.getTotalCounts() );
+            for ( double percentile : PERCENTILES )
+            {
+                result.append( "\t" ).append( histogram.getPercentile( percentile ) );
+            }
+            result.append( "\n" );
+        }
+        return result.toString();
+    }
+
+    public void process()
+    {
+        safePoint.enter();
+        try
+        {
+            run();
+        }
+        catch ( IOException e )
+        {
+            throw new RuntimeException( "Unable to read node and relationship stores.", e );
+        }
+        finally
+        {
+            safePoint.exit();
+        }
+    }
+
+    public void reportProgress()
+    {
+        out.print( safePoint.snapshot() );
+    }
+
+    public void abort()
+    {
+        shouldAbort = true;
+    }
+
+    @Override
+    public Progress getProgress()
+    {
+        return progress;
+    }
+
+    public void snapshotTo( StatisticsSnapshot snapshot )
+    {
+        for ( int cell = 0; cell < typeCount * DIRECTIONS.length; cell++ )
+        {
+            if ( histograms[cell] == null ) continue;
+            snapshot.put( "degrees " + typeName( cell / DIRECTIONS.length ) + " " + DIRECTIONS[cell % DIRECTIONS.length], histograms[cell] );
+        }
+    }
+}
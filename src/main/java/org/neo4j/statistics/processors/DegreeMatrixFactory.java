@@ -0,0 +1,38 @@
+package org.neo4j.statistics.processors;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.statistics.Bucketing;
+import org.neo4j.statistics.StatisticsProcessor;
+import org.neo4j.statistics.StatisticsProcessorFactory;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+public class DegreeMatrixFactory implements StatisticsProcessorFactory
+{
+    // Two significant digits keep percentiles within about 1% of the exact degree
+    private static final String DEFAULT_BUCKETING = "log:2";
+
+    public StatisticsProcessor getProcessor( GraphDatabaseService graphDb, List<String> args, PrintStream out )
+    {
+        List<String> positionalArgs = new ArrayList<String>( args );
+        boolean raw = positionalArgs.remove( "raw" );
+        return new DegreeMatrix( graphDb, out, getBucketing( positionalArgs ), raw );
+    }
+
+    public String name()
+    {
+        return "degrees";
+    }
+
+    public String argsHelp()
+    {
+        return "[rel_chunk_size|log:digits=log:2] [raw] - Prints degree percentiles per relationship type and direction, raw walks the relationship chains in the store files directly";
+    }
+
+    private Bucketing getBucketing( List<String> args )
+    {
+        return Bucketing.parse( args.size() < 1 ? DEFAULT_BUCKETING : args.get( 0 ) );
+    }
+}
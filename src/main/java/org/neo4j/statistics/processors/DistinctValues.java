@@ -0,0 +1,86 @@
+package org.neo4j.statistics.processors;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.statistics.HyperLogLog;
+import org.neo4j.statistics.ValueHash;
+import org.neo4j.statistics.snapshot.StatisticsSnapshot;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * Estimates the number of distinct values of every property key with one {@link HyperLogLog} per key, so memory
+ * stays at 2^precision bytes per key however many values a key has.
+ */
+public class DistinctValues extends PropertyValueScan
+{
+    private final int precision;
+    private HyperLogLog[] sketches = new HyperLogLog[0];
+
+    public DistinctValues( GraphDatabaseService graphDb, PrintStream out, int precision )
+    {
+        super( graphDb, out );
+        // Fail on a bad precision before scanning rather than on the first property
+        this.precision = HyperLogLog.checkPrecision( precision );
+    }
+
+    @Override
+    protected void newKey( int keyId, int capacity )
+    {
+        if ( sketches.length < capacity ) sketches = Arrays.copyOf( sketches, capacity );
+        sketches[keyId] = new HyperLogLog( precision );
+    }
+
+    @Override
+    protected void record( int keyId, Object value )
+    {
+        sketches[keyId].add( ValueHash.hash( value ) );
+    }
+
+    /**
+     * @return the estimated number of distinct values of the key, never more than its number of values.
+     */
+    public long getDistinct( String key )
+    {
+        int id = getKeyId( key );
+        return id < 0 ? 0 : distinct( id );
+    }
+
+    private long distinct( int keyId )
+    {
+        return Math.min( sketches[keyId].cardinality(), getCount( keyId ) );
+    }
+
+    public HyperLogLog getSketch( String key )
+    {
+        int id = getKeyId( key );
+        return id < 0 ? null : sketches[id];
+    }
+
+    @Override
+    public void snapshotTo( StatisticsSnapshot snapshot )
+    {
+        snapshot.put( "totals", "properties", getPropertyCount() );
+        for ( int id = 0; id < getKeyCount(); id++ )
+        {
+            snapshot.put( "keys", getKeyName( id ), getCount( id ) );
+            snapshot.put( "distinct", getKeyName( id ), distinct( id ) );
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append( String.format( "Total number of properties: %d, keys: %d, +/- %.1f%% with %d bytes per key\n",
+            getPropertyCount(), getKeyCount(), 104 / Math.sqrt( 1 << precision ), 1 << precision ) );
+        sb.append( "Key\t\tCount\tDistinct\tSelectivity\n" );
+        for ( int id = 0; id < getKeyCount(); id++ )
+        {
+            long distinct = distinct( id );
+            sb.append( String.format( "%s\t\t%d\t%d\t\t%.4f\n", getKeyName( id ), getCount( id ), distinct,
+                (double) distinct / getCount( id ) ) );
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,39 @@
+package org.neo4j.statistics.processors;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.statistics.HyperLogLog;
+import org.neo4j.statistics.StatisticsProcessor;
+import org.neo4j.statistics.StatisticsProcessorFactory;
+
+import java.io.PrintStream;
+import java.util.List;
+
+public class DistinctValuesFactory implements StatisticsProcessorFactory
+{
+    @Override
+    public StatisticsProcessor getProcessor( GraphDatabaseService graphDb, List<String> args, PrintStream out )
+    {
+        return new DistinctValues( graphDb, out, getPrecision( args ) );
+    }
+
+    @Override
+    public String name()
+    {
+        return "distinct";
+    }
+
+    @Override
+    public String argsHelp()
+    {
+        return "[precision=12] - Estimate the number of distinct values per property key in 2^precision bytes per key, +/- 1.04/sqrt(2^precision)";
+    }
+
+    private int getPrecision( List<String> args )
+    {
+        if ( args.size() < 1 )
+        {
+            return HyperLogLog.DEFAULT_PRECISION;
+        }
+        return Integer.valueOf( args.get( 0 ) );
+    }
+}
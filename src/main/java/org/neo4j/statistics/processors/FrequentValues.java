@@ -0,0 +1,122 @@
+package org.neo4j.statistics.processors;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.statistics.HeavyHitters;
+import org.neo4j.statistics.ValueHash;
+import org.neo4j.statistics.snapshot.StatisticsSnapshot;
+
+import java.io.PrintStream;
+import java.lang.reflect.Array;
+import java.util.Arrays;
+
+/**
+ * The k most frequent values of every property key, with one {@link HeavyHitters} per key, so memory stays at
+ * k monitored values plus a width x depth count-min table per key however many values a key has.
+ */
+public class FrequentValues extends PropertyValueScan
+{
+    private static final int MAX_DISPLAYED_LENGTH = 40;
+    // Longer values are keyed by a prefix and their hash, well within the length limit of snapshot keys
+    private static final int MAX_KEY_LENGTH = 1024;
+
+    private final int k;
+    private final int width;
+    private final int depth;
+    private HeavyHitters[] heavyHitters = new HeavyHitters[0];
+
+    public FrequentValues( GraphDatabaseService graphDb, PrintStream out, int k, int width, int depth )
+    {
+        super( graphDb, out );
+        // Fail on bad arguments before scanning rather than on the first property
+        HeavyHitters.checkArguments( k, width, depth );
+        this.k = k;
+        this.width = width;
+        this.depth = depth;
+    }
+
+    @Override
+    protected void newKey( int keyId, int capacity )
+    {
+        if ( heavyHitters.length < capacity ) heavyHitters = Arrays.copyOf( heavyHitters, capacity );
+        heavyHitters[keyId] = new HeavyHitters( k, width, depth );
+    }
+
+    @Override
+    protected void record( int keyId, Object value )
+    {
+        heavyHitters[keyId].add( value );
+    }
+
+    public HeavyHitters getHeavyHitters( String key )
+    {
+        int id = getKeyId( key );
+        return id < 0 ? null : heavyHitters[id];
+    }
+
+    @Override
+    public void snapshotTo( StatisticsSnapshot snapshot )
+    {
+        snapshot.put( "totals", "properties", getPropertyCount() );
+        for ( int id = 0; id < getKeyCount(); id++ )
+        {
+            HeavyHitters top = heavyHitters[id];
+            for ( int index : top.sortedIndexes() )
+            {
+                snapshot.put( "top " + getKeyName( id ), snapshotKey( top.getValue( index ) ), top.getCount( index ) );
+            }
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append( String.format( "Total number of properties: %d, keys: %d, top %d values per key\n",
+            getPropertyCount(), getKeyCount(), k ) );
+        for ( int id = 0; id < getKeyCount(); id++ )
+        {
+            HeavyHitters top = heavyHitters[id];
+            sb.append( String.format( "Most frequent values of %s, %d values, unmonitored counts +%d with %.1f%% confidence\n",
+                getKeyName( id ), getCount( id ), top.getSketch().getErrorBound(), top.getSketch().getConfidence() * 100 ) );
+            sb.append( "Value\t\tCount\t+/-\n" );
+            for ( int index : top.sortedIndexes() )
+            {
+                sb.append( String.format( "%s\t\t%d\t%d\n", display( top.getValue( index ) ), top.getCount( index ),
+                    top.getError( index ) ) );
+            }
+            sb.append( "\n" );
+        }
+        return sb.toString();
+    }
+
+    private static String display( Object value )
+    {
+        String text = text( value );
+        return text.length() > MAX_DISPLAYED_LENGTH ? text.substring( 0, MAX_DISPLAYED_LENGTH ) + "..." : text;
+    }
+
+    /**
+     * @return the full text of the value, so distinct values with a common prefix keep distinct snapshot entries.
+     */
+    private static String snapshotKey( Object value )
+    {
+        String text = text( value );
+        if ( text.length() <= MAX_KEY_LENGTH ) return text;
+        return text.substring( 0, MAX_KEY_LENGTH ) + "...#" + Long.toHexString( ValueHash.hash( value ) );
+    }
+
+    private static String text( Object value )
+    {
+        if ( value.getClass().isArray() )
+        {
+            StringBuilder sb = new StringBuilder( "[" );
+            for ( int i = 0; i < Array.getLength( value ); i++ )
+            {
+                if ( i > 0 ) sb.append( ", " );
+                sb.append( Array.get( value, i ) );
+            }
+            return sb.append( "]" ).toString();
+        }
+        return String.valueOf( value );
+    }
+}
@@ -0,0 +1,42 @@
+package org.neo4j.statistics.processors;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.statistics.StatisticsProcessor;
+import org.neo4j.statistics.StatisticsProcessorFactory;
+
+import java.io.PrintStream;
+import java.util.List;
+
+public class FrequentValuesFactory implements StatisticsProcessorFactory
+{
+    private static final int DEFAULT_K = 50;
+    private static final int DEFAULT_WIDTH = 2048;
+    private static final int DEPTH = 5;
+
+    @Override
+    public StatisticsProcessor getProcessor( GraphDatabaseService graphDb, List<String> args, PrintStream out )
+    {
+        return new FrequentValues( graphDb, out, getArg( args, 0, DEFAULT_K ), getArg( args, 1, DEFAULT_WIDTH ), DEPTH );
+    }
+
+    @Override
+    public String name()
+    {
+        return "frequent";
+    }
+
+    @Override
+    public String argsHelp()
+    {
+        return "[k=50] [width=2048] - List the k most frequent values per property key, counts overestimate by at most e/width of the key's values with 99.3% confidence";
+    }
+
+    private int getArg( List<String> args, int index, int defaultValue )
+    {
+        if ( args.size() <= index )
+        {
+            return defaultValue;
+        }
+        return Integer.valueOf( args.get( index ) );
+    }
+}
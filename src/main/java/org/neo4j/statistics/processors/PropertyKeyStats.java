@@ -0,0 +1,154 @@
+package org.neo4j.statistics.processors;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.statistics.Bucketing;
+import org.neo4j.statistics.KeyedCounter;
+import org.neo4j.statistics.LongHistogram;
+import org.neo4j.statistics.PropertySizes;
+import org.neo4j.statistics.snapshot.StatisticsSnapshot;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Property statistics broken down by property key. Every per-key aggregate lives in an array indexed by the dense
+ * key id of {@link PropertyValueScan}, so a property costs one map lookup regardless of how many aggregates are
+ * kept for it.
+ */
+public class PropertyKeyStats extends PropertyValueScan
+{
+    private static final Class[] TYPES = {
+        Boolean.class, Byte.class, Short.class, Character.class, Integer.class, Long.class, Float.class,
+        Double.class, String.class, boolean[].class, byte[].class, short[].class, char[].class, int[].class,
+        long[].class, float[].class, double[].class, String[].class
+    };
+    private static final int OTHER_TYPE = TYPES.length;
+    private static final int TYPE_SLOTS = TYPES.length + 1;
+
+    private Bucketing histoBucketing;
+
+    private long[] totalBytes = new long[0];
+    private long[] maxLength = new long[0];
+    private long[] typeCounts = new long[0];
+    private LongHistogram[] histograms = new LongHistogram[0];
+
+    public PropertyKeyStats( GraphDatabaseService graphDb, PrintStream out, Bucketing histoBucketing )
+    {
+        super( graphDb, out );
+        this.histoBucketing = histoBucketing;
+    }
+
+    @Override
+    protected void newKey( int keyId, int capacity )
+    {
+        if ( totalBytes.length < capacity )
+        {
+            totalBytes = Arrays.copyOf( totalBytes, capacity );
+            maxLength = Arrays.copyOf( maxLength, capacity );
+            typeCounts = Arrays.copyOf( typeCounts, capacity * TYPE_SLOTS );
+            histograms = Arrays.copyOf( histograms, capacity );
+        }
+        histograms[keyId] = new LongHistogram( histoBucketing, false );
+    }
+
+    @Override
+    protected void record( int keyId, Object value )
+    {
+        Class<?> type = value.getClass();
+        long size = PropertySizes.sizeOf( type, value );
+        totalBytes[keyId] += size;
+        if ( size > maxLength[keyId] ) maxLength[keyId] = size;
+        typeCounts[keyId * TYPE_SLOTS + typeIndex( type )]++;
+        histograms[keyId].recordCount( size );
+    }
+
+    private static int typeIndex( Class<?> type )
+    {
+        for ( int i = 0; i < TYPES.length; i++ )
+        {
+            if ( TYPES[i] == type ) return i;
+        }
+        return OTHER_TYPE;
+    }
+
+    public long getTotalBytes( String key )
+    {
+        int id = getKeyId( key );
+        return id < 0 ? 0 : totalBytes[id];
+    }
+
+    public long getMaxLength( String key )
+    {
+        int id = getKeyId( key );
+        return id < 0 ? 0 : maxLength[id];
+    }
+
+    public KeyedCounter<String> getTypeMix( String key )
+    {
+        KeyedCounter<String> mix = new KeyedCounter<String>();
+        int id = getKeyId( key );
+        if ( id < 0 ) return mix;
+        for ( int type = 0; type < TYPE_SLOTS; type++ )
+        {
+            long count = typeCounts[id * TYPE_SLOTS + type];
+            if ( count > 0 ) mix.incForKey( typeName( type ), count );
+        }
+        return mix;
+    }
+
+    private static String typeName( int type )
+    {
+        return type == OTHER_TYPE ? "Other" : TYPES[type].getSimpleName();
+    }
+
+    @Override
+    public void snapshotTo( StatisticsSnapshot snapshot )
+    {
+        snapshot.put( "totals", "properties", getPropertyCount() );
+        for ( int id = 0; id < getKeyCount(); id++ )
+        {
+            snapshot.put( "keys", getKeyName( id ), getCount( id ) );
+            snapshot.put( "bytes", getKeyName( id ), totalBytes[id] );
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        Integer[] byBytes = new Integer[getKeyCount()];
+        for ( int i = 0; i < byBytes.length; i++ ) byBytes[i] = i;
+        Arrays.sort( byBytes, new Comparator<Integer>()
+        {
+            @Override
+            public int compare( Integer a, Integer b )
+            {
+                long diff = totalBytes[b] - totalBytes[a];
+                return diff < 0 ? -1 : diff > 0 ? 1 : 0;
+            }
+        } );
+
+        StringBuilder sb = new StringBuilder();
+        sb.append( String.format( "Total number of properties: %d, keys: %d\n", getPropertyCount(), getKeyCount() ) );
+        sb.append( "Key\t\tCount\tBytes\tMax\tAvg\tTypes\n" );
+        for ( int id : byBytes )
+        {
+            sb.append( String.format( "%s\t\t%d\t%d\t%d\t%d\t", getKeyName( id ), getCount( id ), totalBytes[id], maxLength[id],
+                totalBytes[id] / getCount( id ) ) );
+            for ( int type = 0; type < TYPE_SLOTS; type++ )
+            {
+                long count = typeCounts[id * TYPE_SLOTS + type];
+                if ( count > 0 ) sb.append( typeName( type ) ).append( ':' ).append( count ).append( ' ' );
+            }
+            sb.append( "\n" );
+        }
+        sb.append( "\n" );
+        for ( int id : byBytes )
+        {
+            sb.append( "Histogram for " ).append( getKeyName( id ) ).append( "\n" );
+            sb.append( histograms[id].toString( "Values", "Bytes" ) );
+            sb.append( "\n" );
+        }
+        return sb.toString();
+    }
+}
@@ -5,46 +5,93 @@ import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.PropertyContainer;
 import org.neo4j.graphdb.Relationship;
+import org.neo4j.statistics.Bucketing;
 import org.neo4j.statistics.Counter;
-import org.neo4j.statistics.Histogram;
 import org.neo4j.statistics.KeyedCounter;
+import org.neo4j.statistics.LongHistogram;
+import org.neo4j.statistics.Progress;
+import org.neo4j.statistics.SafePoint;
+import org.neo4j.statistics.PropertySizes;
+import org.neo4j.statistics.ScanVisitor;
 import org.neo4j.statistics.StatisticsProcessor;
+import org.neo4j.statistics.snapshot.SnapshotSource;
+import org.neo4j.statistics.snapshot.StatisticsSnapshot;
+import org.neo4j.statistics.store.StoreAccess;
 
 import java.io.PrintStream;
-import java.lang.reflect.Array;
-import java.nio.charset.Charset;
 import java.util.HashMap;
 import java.util.Map;
 
-public class PropertyTypeStats implements StatisticsProcessor
+public class PropertyTypeStats implements StatisticsProcessor, ScanVisitor, SnapshotSource
 {
     private GraphDatabaseService graphDb;
     private PrintStream out;
     private PropertyKeyedCounter propertyTypeOccurrences;
     private long propertyCount;
     private volatile boolean shouldAbort;
+    private final Progress progress = new Progress();
+    private final SafePoint safePoint = new SafePoint( this );
 
-    public PropertyTypeStats( GraphDatabaseService graphDb, PrintStream out, long histoChunkSize )
+    public PropertyTypeStats( GraphDatabaseService graphDb, PrintStream out, Bucketing histoBucketing )
     {
         this.graphDb = graphDb;
         this.out = out;
-        propertyTypeOccurrences = new PropertyKeyedCounter( histoChunkSize );
+        propertyTypeOccurrences = new PropertyKeyedCounter( histoBucketing );
     }
 
     @Override
     public void process()
     {
+        safePoint.enter();
+        try
+        {
+            scan();
+        }
+        finally
+        {
+            safePoint.exit();
+        }
+    }
+
+    private void scan()
+    {
+        progress.start( new StoreAccess( graphDb ).getHighId( Node.class ) );
         for ( Node node : graphDb.getAllNodes() )
         {
             if ( shouldAbort ) return;
-            countProperties( node );
+            progress.set( node.getId() + 1 );
+            safePoint.reached();
+            visitNode( node );
             for ( Relationship rel : node.getRelationships( Direction.OUTGOING ) )
             {
-                countProperties( rel );
+                visitRelationship( rel );
             }
         }
     }
 
+    @Override
+    public void visitNode( Node node )
+    {
+        countProperties( node );
+    }
+
+    @Override
+    public void visitRelationship( Relationship rel )
+    {
+        countProperties( rel );
+    }
+
+    @Override
+    public void scanFinished()
+    {
+    }
+
+    @Override
+    public String getUnfusableOption()
+    {
+        return null;
+    }
+
     private void countProperties( PropertyContainer node )
     {
         for ( String key : node.getPropertyKeys() )
@@ -58,8 +105,13 @@ public class PropertyTypeStats implements StatisticsProcessor
     @Override
     public void reportProgress()
     {
-        out.println( String.format( "Total number of properties: %d", propertyCount ) );
-        out.print( propertyTypeOccurrences );
+        out.print( safePoint.snapshot() );
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format( "Total number of properties: %d\n", propertyCount ) + propertyTypeOccurrences;
     }
 
     @Override
@@ -68,61 +120,54 @@ public class PropertyTypeStats implements StatisticsProcessor
         shouldAbort = true;
     }
 
+    @Override
+    public Progress getProgress()
+    {
+        return progress;
+    }
+
+    @Override
+    public void snapshotTo( StatisticsSnapshot snapshot )
+    {
+        snapshot.put( "totals", "properties", propertyCount );
+        snapshot.put( "types", propertyTypeOccurrences.typeOccurrences );
+        snapshot.put( "lengths", propertyTypeOccurrences.summedArraySize );
+    }
+
     private static class PropertyKeyedCounter
     {
-        Map<String, Histogram<Object>> histograms = new HashMap<String, Histogram<Object>>();
+        Map<Class, LongHistogram> histograms = new HashMap<Class, LongHistogram>();
         KeyedCounter<Class> typeOccurrences = new KeyedCounter<Class>();
         KeyedCounter<Class> maxArraySize = new KeyedCounter<Class>();
         KeyedCounter<Class> summedArraySize = new KeyedCounter<Class>();
-        private long histoChunkSize;
+        private Bucketing histoBucketing;
 
-        public PropertyKeyedCounter( long histoChunkSize )
+        public PropertyKeyedCounter( Bucketing histoBucketing )
         {
-            this.histoChunkSize = histoChunkSize;
+            this.histoBucketing = histoBucketing;
         }
 
         public void incForProperty( Object value )
         {
             Class<?> type = value.getClass();
             typeOccurrences.incForKey( type );
-            if ( isLengthable( type ) )
+            if ( PropertySizes.isLengthable( type ) )
             {
-                int length;
-                if ( type == String.class )
-                {
-                    length = ( (String) value ).getBytes( Charset.forName( "UTF-8" ) ).length;
-                }
-                else if ( type == int[].class )
-                {
-                    length = Array.getLength( value ) * 4;
-                }
-                else if (type == long[].class)
-                {
-                    length = Array.getLength( value ) * 8;
-                }
-                else if (type == short[].class)
-                {
-                    length = Array.getLength( value ) * 2;
-                }
-                else
-                {
-                    length = Array.getLength( value );
-                }
+                int length = PropertySizes.lengthOf( type, value );
                 summedArraySize.incForKey( type, length );
                 if ( length > maxArraySize.getForKey( type ) )
                 {
                     maxArraySize.setForKey( type, length );
                 }
-                addToHisto( type, value, length );
+                addToHisto( type, length );
             }
         }
 
-        private void addToHisto( Class<?> type, Object value, int length )
+        private void addToHisto( Class<?> type, int length )
         {
-            String typeName = type.getSimpleName();
-            Histogram<Object> histo = histograms.get( typeName );
-            if (histo == null) histograms.put( typeName, histo = new Histogram<Object>( histoChunkSize, false ) );
-            histo.record( value, length );
+            LongHistogram histo = histograms.get( type );
+            if (histo == null) histograms.put( type, histo = new LongHistogram( histoBucketing, false ) );
+            histo.recordCount( length );
         }
 
         public String toString()
@@ -132,25 +177,20 @@ public class PropertyTypeStats implements StatisticsProcessor
             for ( Map.Entry<Class, Counter> propertyTypeEntry : typeOccurrences.getCounters().entrySet() )
             {
                 Class type = propertyTypeEntry.getKey();
-                int occurrences = propertyTypeEntry.getValue().getCount();
+                long occurrences = propertyTypeEntry.getValue().getCount();
                 sb.append( String.format( "%s\t\t%d%s\n",
                     type.getSimpleName(),
                     occurrences,
-                    ( isLengthable( type ) ? String.format( " (maxlen %dB, avg %dB)", maxArraySize.getForKey( type ), summedArraySize.getForKey( type ) / occurrences ) : "" ) ) );
+                    ( PropertySizes.isLengthable( type ) ? String.format( " (maxlen %dB, avg %dB)", maxArraySize.getForKey( type ), summedArraySize.getForKey( type ) / occurrences ) : "" ) ) );
             }
             sb.append( "\n" );
-            for ( Map.Entry<String, Histogram<Object>> histogramEntry : histograms.entrySet() )
+            for ( Map.Entry<Class, LongHistogram> histogramEntry : histograms.entrySet() )
             {
-                sb.append( "Histogram for " + histogramEntry.getKey() ).append( "\n" );
+                sb.append( "Histogram for " + histogramEntry.getKey().getSimpleName() ).append( "\n" );
                 sb.append( histogramEntry.getValue().toString( "Objects", "Bytes" ) );
                 sb.append( "\n" );
             }
             return sb.toString();
         }
-
-        private boolean isLengthable( Class type )
-        {
-            return type.isArray() || type == String.class;
-        }
     }
 }
@@ -1,20 +1,51 @@
 package org.neo4j.statistics.processors;
 
 import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.statistics.Bucketing;
+import org.neo4j.statistics.LinearBucketing;
+import org.neo4j.statistics.SampledScan;
 import org.neo4j.statistics.StatisticsProcessor;
 import org.neo4j.statistics.StatisticsProcessorFactory;
 
 import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 public class PropertyTypeStatsFactory implements StatisticsProcessorFactory
 {
     private static final long DEFAULT_CHUNK_SIZE = 5;
 
     @Override
-    public StatisticsProcessor getProcessor( GraphDatabaseService graphDb, List<String> args, PrintStream out )
+    public StatisticsProcessor getProcessor( final GraphDatabaseService graphDb, List<String> args, final PrintStream out )
     {
-        return new PropertyTypeStats( graphDb, out, getChunkSize( args ));
+        List<String> positionalArgs = new ArrayList<String>( args );
+        String sampleSpec = SampledScan.removeSampleSpec( positionalArgs );
+        if ( positionalArgs.remove( "raw" ) )
+        {
+            if ( sampleSpec != null ) throw new IllegalArgumentException( "raw cannot be sampled" );
+            return new RawPropertyStoreStats( graphDb, out, getBucketing( positionalArgs ) );
+        }
+        final boolean byKey = positionalArgs.remove( "bykey" );
+        final Bucketing bucketing = getBucketing( positionalArgs );
+        if ( sampleSpec != null )
+        {
+            SampledScan.Accumulators accumulators = new SampledScan.Accumulators()
+            {
+                @Override
+                public StatisticsProcessor newAccumulator()
+                {
+                    return newProcessor( graphDb, out, byKey, bucketing );
+                }
+            };
+            return new SampledScan( graphDb, out, accumulators, SampledScan.Entities.NODES, sampleSpec, new Random() );
+        }
+        return newProcessor( graphDb, out, byKey, bucketing );
+    }
+
+    private StatisticsProcessor newProcessor( GraphDatabaseService graphDb, PrintStream out, boolean byKey, Bucketing bucketing )
+    {
+        return byKey ? new PropertyKeyStats( graphDb, out, bucketing ) : new PropertyTypeStats( graphDb, out, bucketing );
     }
 
     @Override
@@ -26,15 +57,15 @@ public class PropertyTypeStatsFactory implements StatisticsProcessorFactory
     @Override
     public String argsHelp()
     {
-        return " - Print stats about properties";
+        return "[byte_chunk_size=5|log:digits] [bykey|raw] [sample <fraction|N>] - Print stats about properties, bykey breaks them down per property key, raw reports the on-disk footprint of the property stores, sample estimates them from random nodes and their relationships";
     }
 
-    private long getChunkSize( List<String> args )
+    private Bucketing getBucketing( List<String> args )
     {
         if ( args.size() < 1 )
         {
-            return DEFAULT_CHUNK_SIZE;
+            return new LinearBucketing( DEFAULT_CHUNK_SIZE );
         }
-        return Long.valueOf( args.get( 0 ) );
+        return Bucketing.parse( args.get( 0 ) );
     }
 }
@@ -0,0 +1,186 @@
+package org.neo4j.statistics.processors;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.PropertyContainer;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.statistics.Progress;
+import org.neo4j.statistics.SafePoint;
+import org.neo4j.statistics.ScanVisitor;
+import org.neo4j.statistics.StatisticsProcessor;
+import org.neo4j.statistics.snapshot.SnapshotSource;
+import org.neo4j.statistics.store.StoreAccess;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The property scan shared by processors that aggregate property values per key: every node and its outgoing
+ * relationships are visited once, and each property is handed to {@link #record(int, Object)} with the key interned
+ * to a dense id, so subclasses keep their per-key aggregates in arrays indexed by that id.
+ */
+public abstract class PropertyValueScan implements StatisticsProcessor, ScanVisitor, SnapshotSource
+{
+    private static final int INITIAL_KEYS = 16;
+
+    protected final GraphDatabaseService graphDb;
+    protected final PrintStream out;
+    private volatile boolean shouldAbort;
+    private final Progress progress = new Progress();
+    private final SafePoint safePoint = new SafePoint( this );
+
+    private final Map<String, Integer> keyIds = new HashMap<String, Integer>();
+    private String[] keyNames = new String[INITIAL_KEYS];
+    private long[] counts = new long[INITIAL_KEYS];
+    private int keyCount;
+    private long propertyCount;
+
+    protected PropertyValueScan( GraphDatabaseService graphDb, PrintStream out )
+    {
+        this.graphDb = graphDb;
+        this.out = out;
+    }
+
+    /**
+     * Called the first time a key is seen, before any of its values are recorded.
+     */
+    protected abstract void newKey( int keyId, int capacity );
+
+    protected abstract void record( int keyId, Object value );
+
+    @Override
+    public void process()
+    {
+        safePoint.enter();
+        try
+        {
+            scan();
+        }
+        finally
+        {
+            safePoint.exit();
+        }
+    }
+
+    private void scan()
+    {
+        progress.start( new StoreAccess( graphDb ).getHighId( Node.class ) );
+        for ( Node node : graphDb.getAllNodes() )
+        {
+            if ( shouldAbort ) return;
+            progress.set( node.getId() + 1 );
+            safePoint.reached();
+            visitNode( node );
+            for ( Relationship rel : node.getRelationships( Direction.OUTGOING ) )
+            {
+                visitRelationship( rel );
+            }
+        }
+    }
+
+    @Override
+    public void visitNode( Node node )
+    {
+        recordProperties( node );
+    }
+
+    @Override
+    public void visitRelationship( Relationship rel )
+    {
+        recordProperties( rel );
+    }
+
+    @Override
+    public void scanFinished()
+    {
+    }
+
+    @Override
+    public String getUnfusableOption()
+    {
+        return null;
+    }
+
+    private void recordProperties( PropertyContainer container )
+    {
+        for ( String key : container.getPropertyKeys() )
+        {
+            int keyId = keyId( key );
+            propertyCount++;
+            counts[keyId]++;
+            record( keyId, container.getProperty( key ) );
+        }
+    }
+
+    private int keyId( String key )
+    {
+        Integer id = keyIds.get( key );
+        if ( id != null ) return id;
+        if ( keyCount == keyNames.length )
+        {
+            keyNames = Arrays.copyOf( keyNames, keyNames.length * 2 );
+            counts = Arrays.copyOf( counts, keyNames.length );
+        }
+        int newId = keyCount++;
+        keyIds.put( key, newId );
+        keyNames[newId] = key;
+        newKey( newId, keyNames.length );
+        return newId;
+    }
+
+    /**
+     * @return the id of the key, or -1 if it has not been seen.
+     */
+    protected int getKeyId( String key )
+    {
+        Integer id = keyIds.get( key );
+        return id == null ? -1 : id;
+    }
+
+    protected String getKeyName( int keyId )
+    {
+        return keyNames[keyId];
+    }
+
+    protected int getKeyCount()
+    {
+        return keyCount;
+    }
+
+    protected long getPropertyCount()
+    {
+        return propertyCount;
+    }
+
+    public long getCount( String key )
+    {
+        int id = getKeyId( key );
+        return id < 0 ? 0 : counts[id];
+    }
+
+    protected long getCount( int keyId )
+    {
+        return counts[keyId];
+    }
+
+    @Override
+    public void reportProgress()
+    {
+        out.print( safePoint.snapshot() );
+    }
+
+    @Override
+    public void abort()
+    {
+        shouldAbort = true;
+    }
+
+    @Override
+    public Progress getProgress()
+    {
+        return progress;
+    }
+}
@@ -0,0 +1,307 @@
+package org.neo4j.statistics.processors;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.kernel.impl.nioneo.store.PropertyStore;
+import org.neo4j.kernel.impl.nioneo.store.PropertyType;
+import org.neo4j.statistics.Bucketing;
+import org.neo4j.statistics.LinearBucketing;
+import org.neo4j.statistics.LongHistogram;
+import org.neo4j.statistics.Progress;
+import org.neo4j.statistics.SafePoint;
+import org.neo4j.statistics.StatisticsProcessor;
+import org.neo4j.statistics.snapshot.SnapshotSource;
+import org.neo4j.statistics.snapshot.StatisticsSnapshot;
+import org.neo4j.statistics.store.DynamicRecords;
+import org.neo4j.statistics.store.PropertyRecords;
+import org.neo4j.statistics.store.StoreAccess;
+
+import java.io.IOException;
+import java.io.PrintStream;
+
+/**
+ * Reports the on-disk footprint of properties by scanning the property store and the dynamic string and array
+ * stores directly, without decoding any values.
+ */
+public class RawPropertyStoreStats implements StatisticsProcessor, SnapshotSource
+{
+    private static final PropertyType[] TYPES = PropertyType.values();
+
+    private PrintStream out;
+    private StoreAccess storeAccess;
+    private Bucketing slackBucketing;
+    private volatile boolean shouldAbort;
+    private final Progress progress = new Progress();
+    private final SafePoint safePoint = new SafePoint( this );
+
+    private long propertyStoreBytes;
+    private long recordCount;
+    private long recordsInUse;
+    private long blocksUsed;
+    private long[] propertiesPerType = new long[TYPES.length];
+    private long[] blocksPerType = new long[TYPES.length];
+    private DynamicStoreStats strings;
+    private DynamicStoreStats arrays;
+
+    public RawPropertyStoreStats( GraphDatabaseService graphDb, PrintStream out, Bucketing slackBucketing )
+    {
+        this.storeAccess = new StoreAccess( graphDb );
+        this.out = out;
+        this.slackBucketing = slackBucketing;
+    }
+
+    public void run() throws IOException
+    {
+        storeAccess.flush();
+        PropertyRecords properties = new PropertyRecords(
+            storeAccess.getStoreFile( StoreAccess.PROPERTY_STORE ), storeAccess.getHighId( PropertyStore.class ) );
+        strings = new DynamicStoreStats( "Strings", new DynamicRecords( storeAccess.getStoreFile( StoreAccess.STRING_STORE ) ) );
+        arrays = new DynamicStoreStats( "Arrays", new DynamicRecords( storeAccess.getStoreFile( StoreAccess.ARRAY_STORE ) ) );
+        propertyStoreBytes = storeAccess.getStoreFile( StoreAccess.PROPERTY_STORE ).length();
+
+        recordCount = properties.getHighId();
+        progress.start( recordCount + strings.records.getHighId() + arrays.records.getHighId() );
+        for ( long id = 0; id < recordCount; id++ )
+        {
+            if ( ( id & 0xFFFF ) == 0 )
+            {
+                if ( shouldAbort ) return;
+                progress.set( id );
+                safePoint.reached();
+            }
+            scanRecord( properties, id );
+        }
+        if ( shouldAbort ) return;
+        strings.scanBlocks( recordCount );
+        if ( shouldAbort ) return;
+        arrays.scanBlocks( recordCount + strings.records.getHighId() );
+        progress.set( progress.getTotal() );
+    }
+
+    private void scanRecord( PropertyRecords properties, long id )
+    {
+        int index = 0;
+        while ( index < PropertyRecords.BLOCKS_PER_RECORD )
+        {
+            long header = properties.getBlock( id, index );
+            PropertyType type = PropertyRecords.getType( header );
+            if ( type == null ) break;
+            int blocks = type.calculateNumberOfBlocksUsed( header );
+            propertiesPerType[type.ordinal()]++;
+            blocksPerType[type.ordinal()] += blocks;
+            if ( type == PropertyType.STRING )
+            {
+                strings.recordValue( PropertyRecords.getFirstDynamicRecord( header ) );
+            }
+            else if ( type == PropertyType.ARRAY )
+            {
+                arrays.recordValue( PropertyRecords.getFirstDynamicRecord( header ) );
+            }
+            index += blocks;
+        }
+        if ( index > 0 )
+        {
+            recordsInUse++;
+            blocksUsed += index;
+        }
+    }
+
+    public long getPropertyCount( PropertyType type )
+    {
+        return propertiesPerType[type.ordinal()];
+    }
+
+    public long getRecordsInUse()
+    {
+        return recordsInUse;
+    }
+
+    public DynamicStoreStats getStrings()
+    {
+        return strings;
+    }
+
+    public DynamicStoreStats getArrays()
+    {
+        return arrays;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder();
+        long blocksAvailable = recordsInUse * PropertyRecords.BLOCKS_PER_RECORD;
+        sb.append( String.format( "Property store: %d bytes, %d of %d records in use, %d of %d blocks used (%d bytes slack)\n",
+            propertyStoreBytes, recordsInUse, recordCount, blocksUsed, blocksAvailable,
+            ( blocksAvailable - blocksUsed ) * PropertyRecords.BLOCK_SIZE ) );
+        sb.append( "Type\t\tCount\tBlocks\tBytes\n" );
+        for ( int type = 0; type < TYPES.length; type++ )
+        {
+            if ( propertiesPerType[type] == 0 ) continue;
+            sb.append( String.format( "%s\t\t%d\t%d\t%d\n", TYPES[type].name(), propertiesPerType[type], blocksPerType[type],
+                blocksPerType[type] * PropertyRecords.BLOCK_SIZE ) );
+        }
+        sb.append( "\n" );
+        if ( strings != null ) sb.append( strings );
+        if ( arrays != null ) sb.append( arrays );
+        return sb.toString();
+    }
+
+    public void process()
+    {
+        safePoint.enter();
+        try
+        {
+            run();
+        }
+        catch ( IOException e )
+        {
+            throw new RuntimeException( "Unable to read property stores.", e );
+        }
+        finally
+        {
+            safePoint.exit();
+        }
+    }
+
+    public void reportProgress()
+    {
+        out.print( safePoint.snapshot() );
+    }
+
+    public void abort()
+    {
+        shouldAbort = true;
+    }
+
+    @Override
+    public Progress getProgress()
+    {
+        return progress;
+    }
+
+    public void snapshotTo( StatisticsSnapshot snapshot )
+    {
+        snapshot.put( "property store", "bytes", propertyStoreBytes );
+        snapshot.put( "property store", "records", recordCount );
+        snapshot.put( "property store", "records in use", recordsInUse );
+        snapshot.put( "property store", "blocks used", blocksUsed );
+        for ( int type = 0; type < TYPES.length; type++ )
+        {
+            if ( propertiesPerType[type] == 0 ) continue;
+            snapshot.put( "types", TYPES[type].name(), propertiesPerType[type] );
+            snapshot.put( "type blocks", TYPES[type].name(), blocksPerType[type] );
+        }
+        if ( strings != null ) strings.snapshotTo( snapshot );
+        if ( arrays != null ) arrays.snapshotTo( snapshot );
+    }
+
+    public class DynamicStoreStats
+    {
+        private final String name;
+        private final DynamicRecords records;
+        private final LongHistogram blocksPerValue = new LongHistogram( new LinearBucketing( 1 ), false );
+        private final LongHistogram slackPerBlock = new LongHistogram( slackBucketing, false );
+        private long values;
+        private long blocksInUse;
+        private long dataBytes;
+        private long slackBytes;
+
+        DynamicStoreStats( String name, DynamicRecords records )
+        {
+            this.name = name;
+            this.records = records;
+        }
+
+        void recordValue( long firstBlock )
+        {
+            long blocks = 0;
+            long maxBlocks = records.getHighId();
+            for ( long block = firstBlock; block != StoreAccess.NO_ID && blocks < maxBlocks; block = records.getNextBlock( block ) )
+            {
+                blocks++;
+            }
+            values++;
+            blocksPerValue.recordCount( blocks );
+        }
+
+        /**
+         * @param scannedBefore the number of ids scanned in earlier stores, to report progress over all stores.
+         */
+        void scanBlocks( long scannedBefore )
+        {
+            long highId = records.getHighId();
+            int dataSize = records.getDataSize();
+            for ( long id = DynamicRecords.FIRST_RECORD; id < highId; id++ )
+            {
+                if ( ( id & 0xFFFF ) == 0 )
+                {
+                    if ( shouldAbort ) return;
+                    progress.set( scannedBefore + id );
+                    safePoint.reached();
+                }
+                if ( records.inUse( id ) )
+                {
+                    int length = records.getLength( id );
+                    blocksInUse++;
+                    dataBytes += length;
+                    slackBytes += dataSize - length;
+                    slackPerBlock.recordCount( dataSize - length );
+                }
+            }
+        }
+
+        public long getValues()
+        {
+            return values;
+        }
+
+        public long getBlocksInUse()
+        {
+            return blocksInUse;
+        }
+
+        public long getDataBytes()
+        {
+            return dataBytes;
+        }
+
+        public long getSlackBytes()
+        {
+            return slackBytes;
+        }
+
+        public LongHistogram getBlocksPerValue()
+        {
+            return blocksPerValue;
+        }
+
+        void snapshotTo( StatisticsSnapshot snapshot )
+        {
+            String section = name.toLowerCase();
+            snapshot.put( section, "bytes", records.getFile().length() );
+            snapshot.put( section, "values", values );
+            snapshot.put( section, "blocks in use", blocksInUse );
+            snapshot.put( section, "data bytes", dataBytes );
+            snapshot.put( section, "slack bytes", slackBytes );
+        }
+
+        @Override
+        public String toString()
+        {
+            StringBuilder sb = new StringBuilder();
+            sb.append( String.format( "%s store: %d bytes, block size %d, %d values in %d blocks, %d data bytes, %d bytes slack",
+                name, records.getFile().length(), records.getBlockSize(), values, blocksInUse, dataBytes, slackBytes ) );
+            if ( blocksInUse > 0 )
+            {
+                sb.append( String.format( " (avg %d per block)", slackBytes / blocksInUse ) );
+            }
+            sb.append( "\n" );
+            if ( values > 0 )
+            {
+                sb.append( "Blocks per value\n" ).append( blocksPerValue.toString( "Values", "Blocks" ) ).append( "\n" );
+                sb.append( "Slack per block\n" ).append( slackPerBlock.toString( "Blocks", "Bytes" ) ).append( "\n" );
+            }
+            return sb.toString();
+        }
+    }
+}
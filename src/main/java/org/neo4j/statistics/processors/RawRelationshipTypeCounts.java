@@ -0,0 +1,130 @@
+package org.neo4j.statistics.processors;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.statistics.Counter;
+import org.neo4j.statistics.Progress;
+import org.neo4j.statistics.SafePoint;
+import org.neo4j.statistics.StatisticsProcessor;
+import org.neo4j.statistics.snapshot.SnapshotSource;
+import org.neo4j.statistics.snapshot.StatisticsSnapshot;
+import org.neo4j.statistics.store.RelationshipRecords;
+import org.neo4j.statistics.store.StoreAccess;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.HashMap;
+import java.util.Map;
+
+public class RawRelationshipTypeCounts implements StatisticsProcessor, SnapshotSource
+{
+    private long[] countPerType = new long[RelationshipRecords.MAX_TYPES];
+    private long relCount;
+    private PrintStream out;
+    private StoreAccess storeAccess;
+    private volatile boolean shouldAbort;
+    private final Progress progress = new Progress();
+    private final SafePoint safePoint = new SafePoint( this );
+
+    public RawRelationshipTypeCounts( GraphDatabaseService graphDb, PrintStream out )
+    {
+        this.storeAccess = new StoreAccess( graphDb );
+        this.out = out;
+    }
+
+    public void run() throws IOException
+    {
+        storeAccess.flush();
+        RelationshipRecords relationships = new RelationshipRecords(
+            storeAccess.getStoreFile( StoreAccess.RELATIONSHIP_STORE ), storeAccess.getHighId( Relationship.class ) );
+        long highId = relationships.getHighId();
+        out.println( "Max rels: " + highId );
+        progress.start( highId );
+        for ( long id = 0; id < highId; id++ )
+        {
+            if ( ( id & 0xFFFF ) == 0 )
+            {
+                if ( shouldAbort ) return;
+                progress.set( id );
+                safePoint.reached();
+            }
+            if ( relationships.inUse( id ) )
+            {
+                countPerType[relationships.getType( id )]++;
+                relCount++;
+            }
+        }
+        progress.set( highId );
+    }
+
+    public Map<String, Counter> getResult()
+    {
+        Map<String, Counter> result = new HashMap<String, Counter>();
+        for ( int typeId = 0; typeId < countPerType.length; typeId++ )
+        {
+            if ( countPerType[typeId] > 0 )
+            {
+                result.put( storeAccess.getRelationshipTypeName( typeId ), new Counter( countPerType[typeId] ) );
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder result = new StringBuilder();
+        result.append( "Total: " ).append( relCount ).append( "\n" );
+        result.append( "Type\t\tCount" ).append( "\n" );
+        for ( int typeId = 0; typeId < countPerType.length; typeId++ )
+        {
+            if ( countPerType[typeId] > 0 )
+            {
+                result.append( storeAccess.getRelationshipTypeName( typeId ) ).append( "\t\t" ).append( countPerType[typeId] ).append( "\n" );
+            }
+        }
+        return result.toString();
+    }
+
+    public void process()
+    {
+        safePoint.enter();
+        try
+        {
+            run();
+        }
+        catch ( IOException e )
+        {
+            throw new RuntimeException( "Unable to read relationship store.", e );
+        }
+        finally
+        {
+            safePoint.exit();
+        }
+    }
+
+    public void reportProgress()
+    {
+        out.print( safePoint.snapshot() );
+    }
+
+    public void abort()
+    {
+        shouldAbort = true;
+    }
+
+    @Override
+    public Progress getProgress()
+    {
+        return progress;
+    }
+
+    public void snapshotTo( StatisticsSnapshot snapshot )
+    {
+        snapshot.put( "totals", "relationships", relCount );
+        for ( Map.Entry<String, Counter> entry : getResult().entrySet() )
+        {
+            snapshot.put( "types", entry.getKey(), entry.getValue().getCount() );
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package org.neo4j.statistics.processors;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.statistics.Bucketing;
+import org.neo4j.statistics.Chunk;
+import org.neo4j.statistics.LinearBucketing;
+import org.neo4j.statistics.LongHistogram;
+import org.neo4j.statistics.Progress;
+import org.neo4j.statistics.SafePoint;
+import org.neo4j.statistics.StatisticsProcessor;
+import org.neo4j.statistics.snapshot.SnapshotSource;
+import org.neo4j.statistics.snapshot.StatisticsSnapshot;
+import org.neo4j.statistics.store.NodeRecords;
+import org.neo4j.statistics.store.RelationshipChains;
+import org.neo4j.statistics.store.RelationshipRecords;
+import org.neo4j.statistics.store.StoreAccess;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Map;
+
+public class RawRelationshipsPerNodeHistogram implements StatisticsProcessor, SnapshotSource
+{
+    private PrintStream out;
+    private StoreAccess storeAccess;
+    private volatile boolean shouldAbort;
+    private final Progress progress = new Progress();
+    private final SafePoint safePoint = new SafePoint( this );
+
+    private LongHistogram histogram;
+
+    public RawRelationshipsPerNodeHistogram( GraphDatabaseService graphDb, PrintStream out, long chunkSize )
+    {
+        this( graphDb, out, new LinearBucketing( chunkSize ) );
+    }
+
+    public RawRelationshipsPerNodeHistogram( GraphDatabaseService graphDb, PrintStream out, Bucketing bucketing )
+    {
+        this.storeAccess = new StoreAccess( graphDb );
+        this.out = out;
+        histogram = new LongHistogram( bucketing );
+    }
+
+    public void run() throws IOException
+    {
+        storeAccess.flush();
+        NodeRecords nodes = new NodeRecords( storeAccess.getStoreFile( StoreAccess.NODE_STORE ), storeAccess.getHighId( Node.class ) );
+        RelationshipRecords relationships = new RelationshipRecords(
+            storeAccess.getStoreFile( StoreAccess.RELATIONSHIP_STORE ), storeAccess.getHighId( Relationship.class ) );
+        RelationshipChains chains = new RelationshipChains( nodes, relationships );
+        long highId = nodes.getHighId();
+        progress.start( highId );
+        for ( long id = 0; id < highId; id++ )
+        {
+            if ( ( id & 0xFFFF ) == 0 )
+            {
+                if ( shouldAbort ) return;
+                progress.set( id );
+                safePoint.reached();
+            }
+            if ( nodes.inUse( id ) )
+            {
+                histogram.record( id, chains.degree( id ) );
+            }
+        }
+        progress.set( highId );
+    }
+
+    @Override
+    public String toString()
+    {
+        return histogram.toString( "Nodes", "Rels" );
+    }
+
+    public Map<Long, Chunk<Long>> getCounts()
+    {
+        return histogram.getChunks();
+    }
+
+    public long getNodeCount()
+    {
+        return histogram.getTotalSamples();
+    }
+
+    public long getRelCount()
+    {
+        return histogram.getTotalCounts() / 2;
+    }
+
+    public void process()
+    {
+        safePoint.enter();
+        try
+        {
+            run();
+        }
+        catch ( IOException e )
+        {
+            throw new RuntimeException( "Unable to read node and relationship stores.", e );
+        }
+        finally
+        {
+            safePoint.exit();
+        }
+    }
+
+    public void reportProgress()
+    {
+        out.print( safePoint.snapshot() );
+    }
+
+    public void abort()
+    {
+        shouldAbort = true;
+    }
+
+    @Override
+    public Progress getProgress()
+    {
+        return progress;
+    }
+
+    public void snapshotTo( StatisticsSnapshot snapshot )
+    {
+        snapshot.put( "degrees", histogram );
+    }
+}
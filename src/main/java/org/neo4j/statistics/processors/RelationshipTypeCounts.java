@@ -1,23 +1,31 @@
 package org.neo4j.statistics.processors;
 
 import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.NotFoundException;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.kernel.AbstractGraphDatabase;
 import org.neo4j.statistics.Counter;
 import org.neo4j.statistics.KeyedCounter;
+import org.neo4j.statistics.Progress;
+import org.neo4j.statistics.SafePoint;
+import org.neo4j.statistics.ScanVisitor;
 import org.neo4j.statistics.StatisticsProcessor;
+import org.neo4j.statistics.snapshot.SnapshotSource;
+import org.neo4j.statistics.snapshot.StatisticsSnapshot;
 
 import java.io.PrintStream;
 import java.util.Map;
 
-public class RelationshipTypeCounts implements StatisticsProcessor
+public class RelationshipTypeCounts implements StatisticsProcessor, ScanVisitor, SnapshotSource
 {
     private KeyedCounter<String> countPerType = new KeyedCounter<String>();
     private long relCount;
 	private PrintStream out;
     private GraphDatabaseService graphDb;
     private volatile boolean shouldAbort;
+    private final Progress progress = new Progress();
+    private final SafePoint safePoint = new SafePoint( this );
 
     public RelationshipTypeCounts( GraphDatabaseService graphDb, PrintStream out )
     {
@@ -27,16 +35,17 @@ public class RelationshipTypeCounts implements StatisticsProcessor
 
     public void run()
     {
-        long maxRels = ( (AbstractGraphDatabase) graphDb ).getNodeManager().getNumberOfIdsInUse( Relationship.class ) + 1;
+        long maxRels = ( (AbstractGraphDatabase) graphDb ).getNodeManager().getHighestPossibleIdInUse( Relationship.class ) + 1;
         out.println( "Max rels: " + maxRels );
-        for ( int i = 0; i < maxRels; i++ )
+        progress.start( maxRels );
+        for ( long i = 0; i < maxRels; i++ )
         {
             if (shouldAbort) return;
+            progress.set( i );
+            safePoint.reached();
             try
             {
-                Relationship rel = graphDb.getRelationshipById( i );
-                countPerType.incForKey( rel.getType().name() );
-	            relCount++;
+                visitRelationship( graphDb.getRelationshipById( i ) );
             }
             catch ( NotFoundException e )
             {
@@ -44,6 +53,29 @@ public class RelationshipTypeCounts implements StatisticsProcessor
         }
     }
 
+    @Override
+    public void visitNode( Node node )
+    {
+    }
+
+    @Override
+    public void visitRelationship( Relationship rel )
+    {
+        countPerType.incForKey( rel.getType().name() );
+        relCount++;
+    }
+
+    @Override
+    public void scanFinished()
+    {
+    }
+
+    @Override
+    public String getUnfusableOption()
+    {
+        return null;
+    }
+
     @Override
     public String toString()
     {
@@ -90,15 +122,32 @@ public class RelationshipTypeCounts implements StatisticsProcessor
 //    }
 
 	public void process() {
-		run();
+		safePoint.enter();
+		try {
+			run();
+		} finally {
+			safePoint.exit();
+		}
 	}
 
 	public void reportProgress() {
-		out.print(this);
+		out.print(safePoint.snapshot());
 	}
 
     public void abort()
     {
         shouldAbort = true;
     }
+
+    @Override
+    public Progress getProgress()
+    {
+        return progress;
+    }
+
+    public void snapshotTo( StatisticsSnapshot snapshot )
+    {
+        snapshot.put( "totals", "relationships", relCount );
+        snapshot.put( "types", countPerType );
+    }
 }
\ No newline at end of file
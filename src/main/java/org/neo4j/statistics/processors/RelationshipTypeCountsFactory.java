@@ -1,16 +1,37 @@
 package org.neo4j.statistics.processors;
 
 import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.statistics.SampledScan;
 import org.neo4j.statistics.StatisticsProcessor;
 import org.neo4j.statistics.StatisticsProcessorFactory;
 
 import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 public class RelationshipTypeCountsFactory implements StatisticsProcessorFactory
 {
-    public StatisticsProcessor getProcessor( GraphDatabaseService graphDb, List<String> args, PrintStream out )
+    public StatisticsProcessor getProcessor( final GraphDatabaseService graphDb, List<String> args, final PrintStream out )
     {
+        List<String> positionalArgs = new ArrayList<String>( args );
+        String sampleSpec = SampledScan.removeSampleSpec( positionalArgs );
+        if ( sampleSpec != null )
+        {
+            SampledScan.Accumulators accumulators = new SampledScan.Accumulators()
+            {
+                @Override
+                public StatisticsProcessor newAccumulator()
+                {
+                    return new RelationshipTypeCounts( graphDb, out );
+                }
+            };
+            return new SampledScan( graphDb, out, accumulators, SampledScan.Entities.RELATIONSHIPS, sampleSpec, new Random() );
+        }
+        if ( !positionalArgs.isEmpty() && positionalArgs.get( 0 ).equalsIgnoreCase( "raw" ) )
+        {
+            return new RawRelationshipTypeCounts( graphDb, out );
+        }
         return new RelationshipTypeCounts( graphDb, out );
     }
 
@@ -21,6 +42,6 @@ public class RelationshipTypeCountsFactory implements StatisticsProcessorFactory
 
     public String argsHelp()
     {
-        return "- Aggregates information about relationship types";
+        return "[raw|sample <fraction|N>] - Aggregates information about relationship types, raw reads the relationship store file directly, sample estimates them from random relationships";
     }
 }
@@ -2,60 +2,207 @@ package org.neo4j.statistics.processors;
 
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.Relationship;
 import org.neo4j.helpers.collection.IteratorUtil;
+import org.neo4j.kernel.AbstractGraphDatabase;
+import org.neo4j.statistics.Bucketing;
 import org.neo4j.statistics.Chunk;
-import org.neo4j.statistics.Histogram;
+import org.neo4j.statistics.LinearBucketing;
+import org.neo4j.statistics.LongHistogram;
+import org.neo4j.statistics.Progress;
+import org.neo4j.statistics.SafePoint;
+import org.neo4j.statistics.ScanVisitor;
 import org.neo4j.statistics.StatisticsProcessor;
+import org.neo4j.statistics.snapshot.SnapshotSource;
+import org.neo4j.statistics.snapshot.StatisticsSnapshot;
 
 import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.SortedMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
-public class RelationshipsPerNodeHistogram implements StatisticsProcessor
+public class RelationshipsPerNodeHistogram implements StatisticsProcessor, ScanVisitor, SnapshotSource
 {
+    private static final long RANGE_SIZE = 1 << 20;
+    private static final long PROGRESS_BLOCK = 1 << 16;
+
     private PrintStream out;
     private GraphDatabaseService graphDb;
     private volatile boolean shouldAbort;
+    private final Progress progress = new Progress();
+    private final SafePoint safePoint = new SafePoint( this );
+    private Bucketing bucketing;
+    private int threads;
+    private long rangeSize;
 
-    private Histogram<Long> histogram;
+    private LongHistogram histogram;
 
     public RelationshipsPerNodeHistogram( GraphDatabaseService graphDb, PrintStream out, long chunkSize )
+    {
+        this( graphDb, out, chunkSize, 1 );
+    }
+
+    public RelationshipsPerNodeHistogram( GraphDatabaseService graphDb, PrintStream out, long chunkSize, int threads )
+    {
+        this( graphDb, out, new LinearBucketing( chunkSize ), threads );
+    }
+
+    public RelationshipsPerNodeHistogram( GraphDatabaseService graphDb, PrintStream out, Bucketing bucketing, int threads )
+    {
+        this( graphDb, out, bucketing, threads, RANGE_SIZE );
+    }
+
+    /**
+     * @param rangeSize the number of node ids each parallel range scan covers.
+     */
+    RelationshipsPerNodeHistogram( GraphDatabaseService graphDb, PrintStream out, Bucketing bucketing, int threads, long rangeSize )
     {
         this.graphDb = graphDb;
         this.out = out;
-        histogram = new Histogram<Long>( chunkSize );
+        this.bucketing = bucketing;
+        this.threads = threads;
+        this.rangeSize = rangeSize;
+        histogram = new LongHistogram( bucketing );
     }
 
     public void run()
     {
+        progress.start( ( (AbstractGraphDatabase) graphDb ).getNodeManager().getHighestPossibleIdInUse( Node.class ) + 1 );
+        if ( threads > 1 )
+        {
+            runParallel();
+            return;
+        }
         for ( Node node : graphDb.getAllNodes() )
         {
             if ( shouldAbort ) return;
-            int count = IteratorUtil.count( node.getRelationships() );
-            histogram.record( node.getId(), count );
+            progress.set( node.getId() + 1 );
+            safePoint.reached();
+            visitNode( node );
         }
     }
 
+    private void runParallel()
+    {
+        long highestId = ( (AbstractGraphDatabase) graphDb ).getNodeManager().getHighestPossibleIdInUse( Node.class );
+        ExecutorService executor = Executors.newFixedThreadPool( threads );
+        try
+        {
+            List<Future<?>> rangeFutures = new ArrayList<Future<?>>();
+            for ( long start = 0; start <= highestId; start += rangeSize )
+            {
+                rangeFutures.add( executor.submit( new RangeScan( start, Math.min( start + rangeSize, highestId + 1 ) ) ) );
+            }
+            for ( Future<?> rangeFuture : rangeFutures )
+            {
+                rangeFuture.get();
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch ( ExecutionException e )
+        {
+            throw new RuntimeException( "Scan of node range failed.", e.getCause() );
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    public void visitNode( Node node )
+    {
+        int count = IteratorUtil.count( node.getRelationships() );
+        histogram.record( node.getId(), count );
+    }
+
+    public void visitRelationship( Relationship rel )
+    {
+    }
+
+    private class RangeScan implements Runnable
+    {
+        private final long start;
+        private final long end;
+
+        RangeScan( long start, long end )
+        {
+            this.start = start;
+            this.end = end;
+        }
+
+        public void run()
+        {
+            LongHistogram partial = new LongHistogram( bucketing );
+            long reported = start;
+            long id = start;
+            for ( ; id < end; id++ )
+            {
+                if ( shouldAbort ) break;
+                if ( id - reported == PROGRESS_BLOCK )
+                {
+                    progress.add( PROGRESS_BLOCK );
+                    reported = id;
+                }
+                try
+                {
+                    Node node = graphDb.getNodeById( id );
+                    partial.record( id, IteratorUtil.count( node.getRelationships() ) );
+                }
+                catch ( NotFoundException e )
+                {
+                }
+            }
+            synchronized ( histogram )
+            {
+                histogram.merge( partial );
+            }
+            // Only what was scanned, an aborted range leaves the rest unaccounted
+            progress.add( id - reported );
+        }
+    }
+
+    @Override
+    public void scanFinished()
+    {
+    }
+
+    @Override
+    public String getUnfusableOption()
+    {
+        return threads > 1 ? "threads=" + threads : null;
+    }
+
 
     @Override
     public String toString()
     {
         StringBuilder result = new StringBuilder();
 
-        result.append( histogram.toString( "Nodes", "Rels" ) );
+        synchronized ( histogram )
+        {
+            result.append( histogram.toString( "Nodes", "Rels" ) );
+        }
 
         return result.toString();
     }
 
     public void writeRows( StringBuilder result, SortedMap<Long, Chunk<Long>> sortedResults )
     {
-        histogram.writeRows( result, sortedResults );
+        histogram.toHistogram().writeRows( result, sortedResults );
     }
 
     public void writeRow( StringBuilder result, int rank, long count, long chunkKey, List<Long> samples, long aggregate, long weight, long aggregateWeight )
     {
-        histogram.writeRow( result, rank, count, chunkKey, samples, aggregate, weight, aggregateWeight );
+        histogram.toHistogram().writeRow( result, rank, count, chunkKey, samples, aggregate, weight, aggregateWeight );
     }
 
     public Map<Long, Chunk<Long>> getCounts()
@@ -73,14 +220,31 @@ public class RelationshipsPerNodeHistogram implements StatisticsProcessor
         return histogram.getTotalCounts() / 2;
     }
 
+    /**
+     * A single threaded scan hands out snapshots at safe points between nodes, a parallel scan only touches the shared
+     * histogram while merging a finished range under its lock, so it is rendered under that lock instead.
+     */
     public void process()
     {
-        run();
+        if ( threads > 1 )
+        {
+            run();
+            return;
+        }
+        safePoint.enter();
+        try
+        {
+            run();
+        }
+        finally
+        {
+            safePoint.exit();
+        }
     }
 
     public void reportProgress()
     {
-        out.print( this );
+        out.print( safePoint.snapshot() );
     }
 
     public void abort()
@@ -88,6 +252,17 @@ public class RelationshipsPerNodeHistogram implements StatisticsProcessor
         shouldAbort = true;
     }
 
+    @Override
+    public Progress getProgress()
+    {
+        return progress;
+    }
+
+    public void snapshotTo( StatisticsSnapshot snapshot )
+    {
+        snapshot.put( "degrees", histogram );
+    }
+
 //    public static void main( String[] args ) throws IOException
 //    {
 //        String path = args[0];
@@ -1,19 +1,45 @@
 package org.neo4j.statistics.processors;
 
 import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.statistics.Bucketing;
+import org.neo4j.statistics.LinearBucketing;
+import org.neo4j.statistics.SampledScan;
 import org.neo4j.statistics.StatisticsProcessor;
 import org.neo4j.statistics.StatisticsProcessorFactory;
 
 import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 public class RelationshipsPerNodeHistogramFactory implements StatisticsProcessorFactory
 {
     private static final long DEFAULT_CHUNK_SIZE = 5;
 
-    public StatisticsProcessor getProcessor( GraphDatabaseService graphDb, List<String> args, PrintStream out )
+    public StatisticsProcessor getProcessor( final GraphDatabaseService graphDb, List<String> args, final PrintStream out )
     {
-        return new RelationshipsPerNodeHistogram( graphDb, out, getChunkSize( args ) );
+        List<String> positionalArgs = new ArrayList<String>( args );
+        String sampleSpec = SampledScan.removeSampleSpec( positionalArgs );
+        boolean raw = positionalArgs.remove( "raw" );
+        if ( sampleSpec != null )
+        {
+            if ( raw ) throw new IllegalArgumentException( "raw cannot be sampled" );
+            final Bucketing bucketing = getBucketing( positionalArgs );
+            SampledScan.Accumulators accumulators = new SampledScan.Accumulators()
+            {
+                @Override
+                public StatisticsProcessor newAccumulator()
+                {
+                    return new RelationshipsPerNodeHistogram( graphDb, out, bucketing, 1 );
+                }
+            };
+            return new SampledScan( graphDb, out, accumulators, SampledScan.Entities.NODES, sampleSpec, new Random() );
+        }
+        if ( raw )
+        {
+            return new RawRelationshipsPerNodeHistogram( graphDb, out, getBucketing( positionalArgs ) );
+        }
+        return new RelationshipsPerNodeHistogram( graphDb, out, getBucketing( positionalArgs ), getThreads( positionalArgs ) );
     }
 
     public String name()
@@ -23,15 +49,28 @@ public class RelationshipsPerNodeHistogramFactory implements StatisticsProcessor
 
     public String argsHelp()
     {
-        return "[rel_chunk_size=5] - Prints histogram for relationships per node";
+        return "[rel_chunk_size=5|log:digits] [threads=1|all] [raw|sample <fraction|N>] - Prints histogram for relationships per node, raw walks the store files directly, sample estimates it from random nodes";
     }
 
-    private long getChunkSize( List<String> args )
+    private Bucketing getBucketing( List<String> args )
     {
         if ( args.size() < 1 )
         {
-            return DEFAULT_CHUNK_SIZE;
+            return new LinearBucketing( DEFAULT_CHUNK_SIZE );
+        }
+        return Bucketing.parse( args.get( 0 ) );
+    }
+
+    private int getThreads( List<String> args )
+    {
+        if ( args.size() < 2 )
+        {
+            return 1;
+        }
+        if ( args.get( 1 ).equalsIgnoreCase( "all" ) )
+        {
+            return Runtime.getRuntime().availableProcessors();
         }
-        return Long.valueOf( args.get( 0 ) );
+        return Integer.valueOf( args.get( 1 ) );
     }
 }
@@ -0,0 +1,248 @@
+package org.neo4j.statistics.processors;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.helpers.collection.IteratorUtil;
+import org.neo4j.statistics.Counter;
+import org.neo4j.statistics.KeyedCounter;
+import org.neo4j.statistics.Progress;
+import org.neo4j.statistics.SafePoint;
+import org.neo4j.statistics.ScanVisitor;
+import org.neo4j.statistics.StatisticsProcessor;
+import org.neo4j.statistics.TopK;
+import org.neo4j.statistics.snapshot.SnapshotSource;
+import org.neo4j.statistics.snapshot.StatisticsSnapshot;
+import org.neo4j.statistics.store.NodeRecords;
+import org.neo4j.statistics.store.RelationshipChains;
+import org.neo4j.statistics.store.RelationshipRecords;
+import org.neo4j.statistics.store.StoreAccess;
+import org.neo4j.tooling.GlobalGraphOperations;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.HashMap;
+import java.util.Map;
+
+public class Supernodes implements StatisticsProcessor, ScanVisitor, SnapshotSource
+{
+    private GraphDatabaseService graphDb;
+    private PrintStream out;
+    private boolean raw;
+    private volatile boolean shouldAbort;
+    private final Progress progress = new Progress();
+    private final SafePoint safePoint = new SafePoint( this );
+
+    private TopK topNodes;
+    // Computed once the scan ends, so reports never walk the top nodes' relationships again
+    private volatile Map<Long, KeyedCounter<String>> breakdowns = new HashMap<Long, KeyedCounter<String>>();
+
+    public Supernodes( GraphDatabaseService graphDb, PrintStream out, int k, boolean raw )
+    {
+        this.graphDb = graphDb;
+        this.out = out;
+        this.raw = raw;
+        topNodes = new TopK( k );
+    }
+
+    public void run() throws IOException
+    {
+        if ( raw )
+        {
+            runRaw();
+            return;
+        }
+        progress.start( new StoreAccess( graphDb ).getHighId( Node.class ) );
+        for ( Node node : GlobalGraphOperations.at( graphDb ).getAllNodes() )
+        {
+            if ( shouldAbort ) break;
+            progress.set( node.getId() + 1 );
+            safePoint.reached();
+            visitNode( node );
+        }
+        scanFinished();
+    }
+
+    private void runRaw() throws IOException
+    {
+        StoreAccess storeAccess = new StoreAccess( graphDb );
+        storeAccess.flush();
+        NodeRecords nodes = new NodeRecords( storeAccess.getStoreFile( StoreAccess.NODE_STORE ), storeAccess.getHighId( Node.class ) );
+        RelationshipRecords relationships = new RelationshipRecords(
+            storeAccess.getStoreFile( StoreAccess.RELATIONSHIP_STORE ), storeAccess.getHighId( Relationship.class ) );
+        RelationshipChains chains = new RelationshipChains( nodes, relationships );
+        long highId = nodes.getHighId();
+        progress.start( highId );
+        for ( long id = 0; id < highId; id++ )
+        {
+            if ( ( id & 0xFFFF ) == 0 )
+            {
+                if ( shouldAbort ) break;
+                progress.set( id );
+                safePoint.reached();
+            }
+            if ( nodes.inUse( id ) )
+            {
+                topNodes.offer( id, chains.degree( id ) );
+            }
+        }
+        if ( !shouldAbort ) progress.set( highId );
+        Map<Long, KeyedCounter<String>> result = new HashMap<Long, KeyedCounter<String>>();
+        for ( long nodeId : getNodeIds() )
+        {
+            KeyedCounter<String> breakdown = new KeyedCounter<String>();
+            for ( long relId = chains.firstInChain( nodeId ); relId != StoreAccess.NO_ID; relId = chains.nextInChain( nodeId, relId ) )
+            {
+                breakdown.incForKey( storeAccess.getRelationshipTypeName( relationships.getType( relId ) ) + " "
+                    + getDirection( nodeId, relationships.getFirstNode( relId ), relationships.getSecondNode( relId ) ) );
+            }
+            result.put( nodeId, breakdown );
+        }
+        breakdowns = result;
+    }
+
+    public void visitNode( Node node )
+    {
+        topNodes.offer( node.getId(), IteratorUtil.count( node.getRelationships() ) );
+    }
+
+    public void visitRelationship( Relationship rel )
+    {
+    }
+
+    /**
+     * Breaks the top nodes down by type and direction, once their relationships are no longer counted.
+     */
+    @Override
+    public void scanFinished()
+    {
+        Map<Long, KeyedCounter<String>> result = new HashMap<Long, KeyedCounter<String>>();
+        for ( long nodeId : getNodeIds() )
+        {
+            KeyedCounter<String> breakdown = new KeyedCounter<String>();
+            Node node = graphDb.getNodeById( nodeId );
+            for ( Relationship rel : node.getRelationships() )
+            {
+                breakdown.incForKey( rel.getType().name() + " " + getDirection( nodeId, rel.getStartNode().getId(), rel.getEndNode().getId() ) );
+            }
+            result.put( nodeId, breakdown );
+        }
+        breakdowns = result;
+    }
+
+    @Override
+    public String getUnfusableOption()
+    {
+        return raw ? "raw" : null;
+    }
+
+    public long[] getNodeIds()
+    {
+        int[] indexes = topNodes.sortedIndexes();
+        long[] nodeIds = new long[indexes.length];
+        for ( int i = 0; i < indexes.length; i++ )
+        {
+            nodeIds[i] = topNodes.getId( indexes[i] );
+        }
+        return nodeIds;
+    }
+
+    public long[] getDegrees()
+    {
+        int[] indexes = topNodes.sortedIndexes();
+        long[] degrees = new long[indexes.length];
+        for ( int i = 0; i < indexes.length; i++ )
+        {
+            degrees[i] = topNodes.getValue( indexes[i] );
+        }
+        return degrees;
+    }
+
+    /**
+     * @return the relationships of one of the top nodes by type and direction, empty until the scan has ended.
+     */
+    public KeyedCounter<String> getBreakdown( long nodeId )
+    {
+        KeyedCounter<String> breakdown = breakdowns.get( nodeId );
+        return breakdown == null ? new KeyedCounter<String>() : breakdown;
+    }
+
+    private static Direction getDirection( long nodeId, long startNode, long endNode )
+    {
+        if ( startNode == endNode ) return Direction.BOTH;
+        return startNode == nodeId ? Direction.OUTGOING : Direction.INCOMING;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder result = new StringBuilder();
+        result.append( "Rank\tNode\t\tRels\t\tBy type and direction" ).append( "\n" );
+        long[] nodeIds = getNodeIds();
+        long[] degrees = getDegrees();
+        for ( int i = 0; i < nodeIds.length; i++ )
+        {
+            result.append( i + 1 ).append( "\t" )
+                .append( nodeIds[i] ).append( "\t\t" )
+                .append( degrees[i] ).append( "\t\t" );
+            appendBreakdown( result, getBreakdown( nodeIds[i] ) );
+            result.append( "\n" );
+        }
+        return result.toString();
+    }
+
+    private void appendBreakdown( StringBuilder result, KeyedCounter<String> breakdown )
+    {
+        boolean first = true;
+        for ( Map.Entry<String, Counter> entry : breakdown.getCounters().entrySet() )
+        {
+            if ( !first ) result.append( ", " );
+            result.append( entry.getKey() ).append( ": " ).append( entry.getValue().getCount() );
+            first = false;
+        }
+    }
+
+    public void process()
+    {
+        safePoint.enter();
+        try
+        {
+            run();
+        }
+        catch ( IOException e )
+        {
+            throw new RuntimeException( "Unable to read node and relationship stores.", e );
+        }
+        finally
+        {
+            safePoint.exit();
+        }
+    }
+
+    public void reportProgress()
+    {
+        out.print( safePoint.snapshot() );
+    }
+
+    public void abort()
+    {
+        shouldAbort = true;
+    }
+
+    @Override
+    public Progress getProgress()
+    {
+        return progress;
+    }
+
+    public void snapshotTo( StatisticsSnapshot snapshot )
+    {
+        long[] nodeIds = getNodeIds();
+        long[] degrees = getDegrees();
+        for ( int i = 0; i < nodeIds.length; i++ )
+        {
+            snapshot.put( "degrees", String.valueOf( nodeIds[i] ), degrees[i] );
+        }
+    }
+}
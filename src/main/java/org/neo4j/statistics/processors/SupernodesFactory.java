@@ -0,0 +1,40 @@
+package org.neo4j.statistics.processors;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.statistics.StatisticsProcessor;
+import org.neo4j.statistics.StatisticsProcessorFactory;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SupernodesFactory implements StatisticsProcessorFactory
+{
+    private static final int DEFAULT_K = 10;
+
+    public StatisticsProcessor getProcessor( GraphDatabaseService graphDb, List<String> args, PrintStream out )
+    {
+        List<String> positionalArgs = new ArrayList<String>( args );
+        boolean raw = positionalArgs.remove( "raw" );
+        return new Supernodes( graphDb, out, getK( positionalArgs ), raw );
+    }
+
+    public String name()
+    {
+        return "supernodes";
+    }
+
+    public String argsHelp()
+    {
+        return "[k=10] [raw] - Lists the k nodes with the most relationships, by type and direction";
+    }
+
+    private int getK( List<String> args )
+    {
+        if ( args.size() < 1 )
+        {
+            return DEFAULT_K;
+        }
+        return Integer.valueOf( args.get( 0 ) );
+    }
+}
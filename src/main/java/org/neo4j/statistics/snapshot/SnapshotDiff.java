@@ -0,0 +1,124 @@
+package org.neo4j.statistics.snapshot;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The counts that differ between two snapshots, section by section, in the order of the older snapshot followed by
+ * whatever only the newer one has.
+ */
+public class SnapshotDiff
+{
+    private final StatisticsSnapshot before;
+    private final StatisticsSnapshot after;
+    private final List<Change> changes = new ArrayList<Change>();
+    private long unchanged;
+
+    public SnapshotDiff( StatisticsSnapshot before, StatisticsSnapshot after )
+    {
+        this.before = before;
+        this.after = after;
+        Set<String> sections = new LinkedHashSet<String>( before.getSectionNames() );
+        sections.addAll( after.getSectionNames() );
+        for ( String section : sections )
+        {
+            Map<String, Long> beforeEntries = before.getSection( section );
+            Map<String, Long> afterEntries = after.getSection( section );
+            Set<String> keys = new LinkedHashSet<String>( beforeEntries.keySet() );
+            keys.addAll( afterEntries.keySet() );
+            for ( String key : keys )
+            {
+                Long beforeCount = beforeEntries.get( key );
+                Long afterCount = afterEntries.get( key );
+                if ( beforeCount != null && beforeCount.equals( afterCount ) )
+                {
+                    unchanged++;
+                    continue;
+                }
+                changes.add( new Change( section, key, beforeCount == null ? 0 : beforeCount, afterCount == null ? 0 : afterCount ) );
+            }
+        }
+    }
+
+    public List<Change> getChanges()
+    {
+        return changes;
+    }
+
+    public long getUnchanged()
+    {
+        return unchanged;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder result = new StringBuilder();
+        result.append( "From " ).append( before ).append( "\n" );
+        result.append( "To   " ).append( after ).append( "\n" );
+        result.append( String.format( "%d changed, %d unchanged\n", changes.size(), unchanged ) );
+        String section = null;
+        for ( Change change : changes )
+        {
+            if ( !change.getSection().equals( section ) )
+            {
+                section = change.getSection();
+                result.append( "--- " ).append( section ).append( "\n" );
+                result.append( "Key\t\tBefore\tAfter\tChange\n" );
+            }
+            result.append( change ).append( "\n" );
+        }
+        return result.toString();
+    }
+
+    public static class Change
+    {
+        private final String section;
+        private final String key;
+        private final long before;
+        private final long after;
+
+        Change( String section, String key, long before, long after )
+        {
+            this.section = section;
+            this.key = key;
+            this.before = before;
+            this.after = after;
+        }
+
+        public String getSection()
+        {
+            return section;
+        }
+
+        public String getKey()
+        {
+            return key;
+        }
+
+        public long getBefore()
+        {
+            return before;
+        }
+
+        public long getAfter()
+        {
+            return after;
+        }
+
+        public long getDelta()
+        {
+            return after - before;
+        }
+
+        @Override
+        public String toString()
+        {
+            String relative = before == 0 ? "new" : String.format( "%+.1f%%", getDelta() * 100.0 / before );
+            return String.format( "%s\t\t%d\t%d\t%+d (%s)", key, before, after, getDelta(), relative );
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package org.neo4j.statistics.snapshot;
+
+/**
+ * A processor whose aggregates can be kept as a {@link StatisticsSnapshot}.
+ */
+public interface SnapshotSource
+{
+    void snapshotTo( StatisticsSnapshot snapshot );
+}
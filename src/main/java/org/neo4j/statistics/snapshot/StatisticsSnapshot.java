@@ -0,0 +1,279 @@
+package org.neo4j.statistics.snapshot;
+
+import org.neo4j.statistics.Chunk;
+import org.neo4j.statistics.Counter;
+import org.neo4j.statistics.KeyedCounter;
+import org.neo4j.statistics.LongHistogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The aggregates of a processor run as named sections of named counts, e.g. one count per relationship type or one
+ * node count per degree bucket, so that runs can be kept and compared without the store they were taken from. Saved
+ * as a small versioned binary file:
+ * <pre>
+ * 0   long    magic
+ * 8   int     version
+ * 12  long    creation time
+ * 20  string  processor name
+ *     int     number of sections, each a string name, an int number of entries and per entry a string key and a
+ *             var long count
+ * </pre>
+ * Strings are an unsigned short byte length followed by UTF-8.
+ */
+public class StatisticsSnapshot
+{
+    static final long MAGIC = 0x4E454F5354415453L;
+    static final int VERSION = 1;
+
+    private static final Charset UTF8 = Charset.forName( "UTF-8" );
+
+    private final String name;
+    private final long createdAt;
+    private final Map<String, Map<String, Long>> sections = new LinkedHashMap<String, Map<String, Long>>();
+
+    public StatisticsSnapshot( String name )
+    {
+        this( name, System.currentTimeMillis() );
+    }
+
+    public StatisticsSnapshot( String name, long createdAt )
+    {
+        this.name = name;
+        this.createdAt = createdAt;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public long getCreatedAt()
+    {
+        return createdAt;
+    }
+
+    public List<String> getSectionNames()
+    {
+        return new ArrayList<String>( sections.keySet() );
+    }
+
+    public Map<String, Long> getSection( String section )
+    {
+        Map<String, Long> entries = sections.get( section );
+        return entries == null ? Collections.<String, Long>emptyMap() : Collections.unmodifiableMap( entries );
+    }
+
+    public void put( String section, String key, long count )
+    {
+        Map<String, Long> entries = sections.get( section );
+        if ( entries == null ) sections.put( section, entries = new LinkedHashMap<String, Long>() );
+        entries.put( key, count );
+    }
+
+    public void put( String section, KeyedCounter<?> counter )
+    {
+        for ( Map.Entry<?, Counter> entry : counter.getCounters().entrySet() )
+        {
+            Object key = entry.getKey();
+            put( section, key instanceof Class ? ( (Class) key ).getSimpleName() : String.valueOf( key ), entry.getValue().getCount() );
+        }
+    }
+
+    /**
+     * Adds the count of every chunk of the histogram, keyed by the lowest count of the chunk, in chunk order.
+     */
+    public void put( String section, LongHistogram histogram )
+    {
+        Map<Long, Chunk<Long>> chunks = histogram.getChunks();
+        List<Long> chunkKeys = new ArrayList<Long>( chunks.keySet() );
+        Collections.sort( chunkKeys );
+        for ( Long chunkKey : chunkKeys )
+        {
+            put( section, String.valueOf( histogram.getBucketing().getCountBaseForChunkKey( chunkKey ) ),
+                chunks.get( chunkKey ).getCount() );
+        }
+        put( section, "total samples", histogram.getTotalSamples() );
+        put( section, "total counts", histogram.getTotalCounts() );
+    }
+
+    /**
+     * Adds every section of the other snapshot under the given prefix.
+     */
+    public void putAll( String prefix, StatisticsSnapshot other )
+    {
+        for ( Map.Entry<String, Map<String, Long>> section : other.sections.entrySet() )
+        {
+            for ( Map.Entry<String, Long> entry : section.getValue().entrySet() )
+            {
+                put( prefix + section.getKey(), entry.getKey(), entry.getValue() );
+            }
+        }
+    }
+
+    public void save( File file ) throws IOException
+    {
+        Writer writer = new Writer();
+        writer.ensure( 24 );
+        writer.buffer.putLong( MAGIC );
+        writer.buffer.putInt( VERSION );
+        writer.buffer.putLong( createdAt );
+        writer.putString( name );
+        writer.ensure( 4 );
+        writer.buffer.putInt( sections.size() );
+        for ( Map.Entry<String, Map<String, Long>> section : sections.entrySet() )
+        {
+            writer.putString( section.getKey() );
+            writer.ensure( 4 );
+            writer.buffer.putInt( section.getValue().size() );
+            for ( Map.Entry<String, Long> entry : section.getValue().entrySet() )
+            {
+                writer.putString( entry.getKey() );
+                writer.putVarLong( entry.getValue() );
+            }
+        }
+        ByteBuffer content = writer.buffer;
+        content.flip();
+        RandomAccessFile raf = new RandomAccessFile( file, "rw" );
+        try
+        {
+            raf.setLength( 0 );
+            FileChannel channel = raf.getChannel();
+            while ( content.hasRemaining() )
+            {
+                channel.write( content );
+            }
+            channel.force( false );
+        }
+        finally
+        {
+            raf.close();
+        }
+    }
+
+    public static StatisticsSnapshot load( File file ) throws IOException
+    {
+        RandomAccessFile raf = new RandomAccessFile( file, "r" );
+        try
+        {
+            ByteBuffer buffer = raf.getChannel().map( FileChannel.MapMode.READ_ONLY, 0, raf.length() );
+            if ( buffer.remaining() < 24 || buffer.getLong() != MAGIC )
+            {
+                throw new IOException( file + " is not a statistics snapshot." );
+            }
+            int version = buffer.getInt();
+            if ( version != VERSION )
+            {
+                throw new IOException( "Unsupported snapshot version " + version + " in " + file );
+            }
+            long createdAt = buffer.getLong();
+            StatisticsSnapshot snapshot = new StatisticsSnapshot( getString( buffer ), createdAt );
+            int sectionCount = buffer.getInt();
+            for ( int section = 0; section < sectionCount; section++ )
+            {
+                String sectionName = getString( buffer );
+                int entryCount = buffer.getInt();
+                for ( int entry = 0; entry < entryCount; entry++ )
+                {
+                    snapshot.put( sectionName, getString( buffer ), getVarLong( buffer ) );
+                }
+            }
+            return snapshot;
+        }
+        catch ( RuntimeException e )
+        {
+            throw new IOException( "Corrupt statistics snapshot " + file, e );
+        }
+        finally
+        {
+            raf.close();
+        }
+    }
+
+    private static String getString( ByteBuffer buffer )
+    {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get( bytes );
+        return new String( bytes, UTF8 );
+    }
+
+    private static long getVarLong( ByteBuffer buffer )
+    {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do
+        {
+            b = buffer.get();
+            value |= (long) ( b & 0x7F ) << shift;
+            shift += 7;
+        }
+        while ( ( b & 0x80 ) != 0 );
+        return value;
+    }
+
+    @Override
+    public boolean equals( Object o )
+    {
+        if ( this == o ) return true;
+        if ( o == null || getClass() != o.getClass() ) return false;
+        StatisticsSnapshot that = (StatisticsSnapshot) o;
+        return createdAt == that.createdAt && name.equals( that.name ) && sections.equals( that.sections );
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return 31 * name.hashCode() + sections.hashCode();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format( "%s snapshot of %tF %<tT, %d sections", name, createdAt, sections.size() );
+    }
+
+    private static class Writer
+    {
+        private ByteBuffer buffer = ByteBuffer.allocate( 4096 );
+
+        void ensure( int bytes )
+        {
+            if ( buffer.remaining() >= bytes ) return;
+            ByteBuffer larger = ByteBuffer.allocate( Math.max( buffer.capacity() * 2, buffer.position() + bytes ) );
+            buffer.flip();
+            larger.put( buffer );
+            buffer = larger;
+        }
+
+        void putString( String value )
+        {
+            byte[] bytes = value.getBytes( UTF8 );
+            if ( bytes.length > 0xFFFF ) throw new IllegalArgumentException( "Name too long for a snapshot: " + value );
+            ensure( 2 + bytes.length );
+            buffer.putShort( (short) bytes.length );
+            buffer.put( bytes );
+        }
+
+        void putVarLong( long value )
+        {
+            ensure( 10 );
+            while ( ( value & ~0x7FL ) != 0 )
+            {
+                buffer.put( (byte) ( ( value & 0x7F ) | 0x80 ) );
+                value >>>= 7;
+            }
+            buffer.put( (byte) value );
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.neo4j.statistics.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ * Decodes records of the dynamic string and array stores. Record 0 holds the block size, every other record is a
+ * block of that size:
+ * <pre>
+ * 0   int   bits 28-31 in use, bits 24-27 next block high bits, bits 0-23 number of data bytes
+ * 4   int   next block in the chain
+ * 8         data
+ * </pre>
+ */
+public class DynamicRecords
+{
+    public static final int BLOCK_HEADER_SIZE = 8;
+    public static final long FIRST_RECORD = 1;
+
+    private static final int IN_USE = 1;
+
+    private final MappedStoreFile file;
+    private final int blockSize;
+
+    public DynamicRecords( File file ) throws IOException
+    {
+        this.blockSize = readBlockSize( file );
+        this.file = new MappedStoreFile( file, blockSize );
+    }
+
+    private static int readBlockSize( File file ) throws IOException
+    {
+        RandomAccessFile raf = new RandomAccessFile( file, "r" );
+        try
+        {
+            return raf.readInt();
+        }
+        finally
+        {
+            raf.close();
+        }
+    }
+
+    public File getFile()
+    {
+        return file.getFile();
+    }
+
+    public int getBlockSize()
+    {
+        return blockSize;
+    }
+
+    public int getDataSize()
+    {
+        return blockSize - BLOCK_HEADER_SIZE;
+    }
+
+    public long getHighId()
+    {
+        return file.getRecordCount();
+    }
+
+    public boolean inUse( long id )
+    {
+        return file.getInt( id, 0 ) >>> 28 == IN_USE;
+    }
+
+    public int getLength( long id )
+    {
+        return file.getInt( id, 0 ) & 0xFFFFFF;
+    }
+
+    public long getNextBlock( long id )
+    {
+        return StoreAccess.longFromIntAndMod( file.getUnsignedInt( id, 4 ), ( file.getInt( id, 0 ) & 0xF000000L ) << 8 );
+    }
+}
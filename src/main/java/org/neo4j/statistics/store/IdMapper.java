@@ -0,0 +1,104 @@
+package org.neo4j.statistics.store;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+
+import java.io.IOException;
+
+/**
+ * Maps the in-use ids of a store to dense indexes 0..size-1 and back, preserving order, so that algorithms can size
+ * their arrays by the number of nodes rather than the highest id. The in-use ids are kept as a bitmap with the
+ * number of ids in use before each 64 bit word, about 0.19 bytes per id. Mapping to a dense index is a popcount,
+ * mapping back is a binary search over the words.
+ */
+public class IdMapper
+{
+    public static final int NOT_MAPPED = -1;
+
+    private final long[] inUse;
+    private final int[] rankBeforeWord;
+    private final long highId;
+    private final int size;
+
+    public IdMapper( long[] inUse, long highId )
+    {
+        if ( inUse.length < ( highId + 63 ) / 64 ) throw new IllegalArgumentException( "Bitmap too small for high id " + highId );
+        this.inUse = inUse;
+        this.highId = highId;
+        this.rankBeforeWord = new int[inUse.length];
+        long rank = 0;
+        for ( int word = 0; word < inUse.length; word++ )
+        {
+            rankBeforeWord[word] = (int) rank;
+            rank += Long.bitCount( inUse[word] );
+            if ( rank > Integer.MAX_VALUE ) throw new IllegalArgumentException( "Too many ids in use." );
+        }
+        this.size = (int) rank;
+    }
+
+    public static IdMapper fromNodeStore( GraphDatabaseService graphDb ) throws IOException
+    {
+        StoreAccess store = new StoreAccess( graphDb );
+        store.flush();
+        NodeRecords nodes = new NodeRecords( store.getStoreFile( StoreAccess.NODE_STORE ), store.getHighId( Node.class ) );
+        long highId = nodes.getHighId();
+        long[] inUse = new long[(int) ( ( highId + 63 ) / 64 )];
+        for ( long id = 0; id < highId; id++ )
+        {
+            if ( nodes.inUse( id ) )
+            {
+                inUse[(int) ( id >>> 6 )] |= 1L << ( id & 63 );
+            }
+        }
+        return new IdMapper( inUse, highId );
+    }
+
+    public long getHighId()
+    {
+        return highId;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public long[] getInUseBits()
+    {
+        return inUse;
+    }
+
+    public boolean isMapped( long id )
+    {
+        return id >= 0 && id < highId && ( inUse[(int) ( id >>> 6 )] & ( 1L << ( id & 63 ) ) ) != 0;
+    }
+
+    /**
+     * @return the dense index of the id, or {@link #NOT_MAPPED} if the id is not in use.
+     */
+    public int toDense( long id )
+    {
+        if ( !isMapped( id ) ) return NOT_MAPPED;
+        int word = (int) ( id >>> 6 );
+        return rankBeforeWord[word] + Long.bitCount( inUse[word] & ( ( 1L << ( id & 63 ) ) - 1 ) );
+    }
+
+    public long toOriginal( int dense )
+    {
+        if ( dense < 0 || dense >= size ) throw new IllegalArgumentException( "No such index: " + dense );
+        int low = 0;
+        int high = inUse.length - 1;
+        while ( low < high )
+        {
+            int middle = ( low + high + 1 ) >>> 1;
+            if ( rankBeforeWord[middle] <= dense ) low = middle;
+            else high = middle - 1;
+        }
+        long bits = inUse[low];
+        for ( int skip = dense - rankBeforeWord[low]; skip > 0; skip-- )
+        {
+            bits &= bits - 1;
+        }
+        return ( (long) low << 6 ) + Long.numberOfTrailingZeros( bits );
+    }
+}
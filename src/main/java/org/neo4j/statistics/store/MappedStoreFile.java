@@ -0,0 +1,88 @@
+package org.neo4j.statistics.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+public class MappedStoreFile
+{
+    private static final long MAX_SEGMENT_SIZE = 1 << 30;
+
+    private final File file;
+    private final int recordSize;
+    private final long recordsPerSegment;
+    private final long recordCount;
+    private final MappedByteBuffer[] segments;
+
+    public MappedStoreFile( File file, int recordSize ) throws IOException
+    {
+        this.file = file;
+        this.recordSize = recordSize;
+        this.recordsPerSegment = MAX_SEGMENT_SIZE / recordSize;
+        RandomAccessFile raf = new RandomAccessFile( file, "r" );
+        try
+        {
+            FileChannel channel = raf.getChannel();
+            long fileSize = channel.size();
+            recordCount = fileSize / recordSize;
+            long segmentSize = recordsPerSegment * recordSize;
+            segments = new MappedByteBuffer[(int) ( ( fileSize + segmentSize - 1 ) / segmentSize )];
+            for ( int i = 0; i < segments.length; i++ )
+            {
+                long position = i * segmentSize;
+                segments[i] = channel.map( FileChannel.MapMode.READ_ONLY, position, Math.min( segmentSize, fileSize - position ) );
+            }
+        }
+        finally
+        {
+            raf.close();
+        }
+    }
+
+    public File getFile()
+    {
+        return file;
+    }
+
+    public int getRecordSize()
+    {
+        return recordSize;
+    }
+
+    public long getRecordCount()
+    {
+        return recordCount;
+    }
+
+    public byte getByte( long id, int offset )
+    {
+        return segment( id ).get( position( id, offset ) );
+    }
+
+    public int getInt( long id, int offset )
+    {
+        return segment( id ).getInt( position( id, offset ) );
+    }
+
+    public long getUnsignedInt( long id, int offset )
+    {
+        return getInt( id, offset ) & 0xFFFFFFFFL;
+    }
+
+    public long getLong( long id, int offset )
+    {
+        return segment( id ).getLong( position( id, offset ) );
+    }
+
+    private MappedByteBuffer segment( long id )
+    {
+        return segments[(int) ( id / recordsPerSegment )];
+    }
+
+    private int position( long id, int offset )
+    {
+        return (int) ( id % recordsPerSegment ) * recordSize + offset;
+    }
+}
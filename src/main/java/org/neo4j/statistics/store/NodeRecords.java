@@ -0,0 +1,41 @@
+package org.neo4j.statistics.store;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Decodes records of neostore.nodestore.db. Each record is 9 bytes:
+ * <pre>
+ * 0   byte  bit 0 in use, bits 1-3 next relationship high bits, bits 4-7 next property high bits
+ * 1   int   first relationship in the chain
+ * 5   int   first property
+ * </pre>
+ */
+public class NodeRecords
+{
+    public static final int RECORD_SIZE = 9;
+
+    private final MappedStoreFile file;
+    private final long highId;
+
+    public NodeRecords( File file, long highId ) throws IOException
+    {
+        this.file = new MappedStoreFile( file, RECORD_SIZE );
+        this.highId = Math.min( highId, this.file.getRecordCount() );
+    }
+
+    public long getHighId()
+    {
+        return highId;
+    }
+
+    public boolean inUse( long id )
+    {
+        return ( file.getByte( id, 0 ) & 0x1 ) != 0;
+    }
+
+    public long getNextRel( long id )
+    {
+        return StoreAccess.longFromIntAndMod( file.getUnsignedInt( id, 1 ), ( file.getByte( id, 0 ) & 0xEL ) << 31 );
+    }
+}
@@ -0,0 +1,64 @@
+package org.neo4j.statistics.store;
+
+import org.neo4j.kernel.impl.nioneo.store.PropertyType;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Decodes records of neostore.propertystore.db. Each record is 41 bytes:
+ * <pre>
+ * 0   byte  bits 0-3 next record high bits, bits 4-7 previous record high bits
+ * 1   int   previous record
+ * 5   int   next record
+ * 9   long  four payload blocks
+ * </pre>
+ * A property occupies one or more consecutive blocks. The header block holds the property type in bits 24-27 and
+ * the key in the low 24 bits, and for strings and arrays stored in a dynamic store, the first dynamic record in the
+ * bits above 28. A record is in use if its first block holds a property.
+ */
+public class PropertyRecords
+{
+    public static final int RECORD_SIZE = 41;
+    public static final int BLOCKS_PER_RECORD = 4;
+    public static final int BLOCK_SIZE = 8;
+
+    private static final int BLOCKS_OFFSET = 9;
+
+    private final MappedStoreFile file;
+    private final long highId;
+
+    public PropertyRecords( File file, long highId ) throws IOException
+    {
+        this.file = new MappedStoreFile( file, RECORD_SIZE );
+        this.highId = Math.min( highId, this.file.getRecordCount() );
+    }
+
+    public long getHighId()
+    {
+        return highId;
+    }
+
+    public long getBlock( long id, int index )
+    {
+        return file.getLong( id, BLOCKS_OFFSET + index * BLOCK_SIZE );
+    }
+
+    /**
+     * @return the type of the property starting at the given header block, or null if the block is empty.
+     */
+    public static PropertyType getType( long headerBlock )
+    {
+        return PropertyType.getPropertyType( headerBlock, true );
+    }
+
+    public static int getKeyId( long headerBlock )
+    {
+        return (int) ( headerBlock & 0xFFFFFF );
+    }
+
+    public static long getFirstDynamicRecord( long headerBlock )
+    {
+        return headerBlock >>> 28;
+    }
+}
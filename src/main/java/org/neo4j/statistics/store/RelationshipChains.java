@@ -0,0 +1,38 @@
+package org.neo4j.statistics.store;
+
+public class RelationshipChains
+{
+    private final NodeRecords nodes;
+    private final RelationshipRecords relationships;
+
+    public RelationshipChains( NodeRecords nodes, RelationshipRecords relationships )
+    {
+        this.nodes = nodes;
+        this.relationships = relationships;
+    }
+
+    public int degree( long nodeId )
+    {
+        int degree = 0;
+        long relId = firstInChain( nodeId );
+        while ( relId != StoreAccess.NO_ID )
+        {
+            degree++;
+            relId = nextInChain( nodeId, relId );
+        }
+        return degree;
+    }
+
+    public long firstInChain( long nodeId )
+    {
+        return nodes.getNextRel( nodeId );
+    }
+
+    // A loop has the node as both first and second node and is linked into the chain once, via the first node pointers
+    public long nextInChain( long nodeId, long relId )
+    {
+        return relationships.getFirstNode( relId ) == nodeId
+            ? relationships.getFirstNextRel( relId )
+            : relationships.getSecondNextRel( relId );
+    }
+}
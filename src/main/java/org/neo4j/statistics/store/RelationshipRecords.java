@@ -0,0 +1,68 @@
+package org.neo4j.statistics.store;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Decodes records of neostore.relationshipstore.db. Each record is 33 bytes:
+ * <pre>
+ * 0   byte  bit 0 in use, bits 1-3 first node high bits, bits 4-7 next property high bits
+ * 1   int   first node
+ * 5   int   second node
+ * 9   int   type in the low 16 bits, high bits for second node and the four chain pointers above it
+ * 13  int   first node previous relationship
+ * 17  int   first node next relationship
+ * 21  int   second node previous relationship
+ * 25  int   second node next relationship
+ * 29  int   next property
+ * </pre>
+ */
+public class RelationshipRecords
+{
+    public static final int RECORD_SIZE = 33;
+    public static final int MAX_TYPES = 1 << 16;
+
+    private final MappedStoreFile file;
+    private final long highId;
+
+    public RelationshipRecords( File file, long highId ) throws IOException
+    {
+        this.file = new MappedStoreFile( file, RECORD_SIZE );
+        this.highId = Math.min( highId, this.file.getRecordCount() );
+    }
+
+    public long getHighId()
+    {
+        return highId;
+    }
+
+    public boolean inUse( long id )
+    {
+        return ( file.getByte( id, 0 ) & 0x1 ) != 0;
+    }
+
+    public int getType( long id )
+    {
+        return file.getInt( id, 9 ) & 0xFFFF;
+    }
+
+    public long getFirstNode( long id )
+    {
+        return StoreAccess.longFromIntAndMod( file.getUnsignedInt( id, 1 ), ( file.getByte( id, 0 ) & 0xEL ) << 31 );
+    }
+
+    public long getSecondNode( long id )
+    {
+        return StoreAccess.longFromIntAndMod( file.getUnsignedInt( id, 5 ), ( file.getInt( id, 9 ) & 0x70000000L ) << 4 );
+    }
+
+    public long getFirstNextRel( long id )
+    {
+        return StoreAccess.longFromIntAndMod( file.getUnsignedInt( id, 17 ), ( file.getInt( id, 9 ) & 0x01C00000L ) << 10 );
+    }
+
+    public long getSecondNextRel( long id )
+    {
+        return StoreAccess.longFromIntAndMod( file.getUnsignedInt( id, 25 ), ( file.getInt( id, 9 ) & 0x00070000L ) << 16 );
+    }
+}
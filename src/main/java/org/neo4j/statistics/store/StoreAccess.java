@@ -0,0 +1,71 @@
+package org.neo4j.statistics.store;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.kernel.AbstractGraphDatabase;
+
+import java.io.File;
+
+public class StoreAccess
+{
+    public static final String NODE_STORE = "neostore.nodestore.db";
+    public static final String RELATIONSHIP_STORE = "neostore.relationshipstore.db";
+    public static final String PROPERTY_STORE = "neostore.propertystore.db";
+    public static final String STRING_STORE = "neostore.propertystore.db.strings";
+    public static final String ARRAY_STORE = "neostore.propertystore.db.arrays";
+    public static final long NO_ID = -1;
+
+    private AbstractGraphDatabase graphDb;
+
+    public StoreAccess( GraphDatabaseService graphDb )
+    {
+        this.graphDb = (AbstractGraphDatabase) graphDb;
+    }
+
+    /**
+     * Writes all committed changes held in the store windows to disk, so that the raw store files can be read
+     * while the database is running.
+     */
+    public void flush()
+    {
+        graphDb.getXaDataSourceManager().getNeoStoreDataSource().getNeoStore().flushAll();
+    }
+
+    /**
+     * The creation time, random identifier and last committed transaction together identify a store and its state,
+     * so that snapshots derived from it can tell whether they are still current.
+     */
+    public long getCreationTime()
+    {
+        return graphDb.getXaDataSourceManager().getNeoStoreDataSource().getCreationTime();
+    }
+
+    public long getRandomIdentifier()
+    {
+        return graphDb.getXaDataSourceManager().getNeoStoreDataSource().getRandomIdentifier();
+    }
+
+    public long getLastCommittedTxId()
+    {
+        return graphDb.getXaDataSourceManager().getNeoStoreDataSource().getLastCommittedTxId();
+    }
+
+    public File getStoreFile( String name )
+    {
+        return new File( graphDb.getStoreDir(), name );
+    }
+
+    public long getHighId( Class<?> type )
+    {
+        return graphDb.getNodeManager().getHighestPossibleIdInUse( type ) + 1;
+    }
+
+    public String getRelationshipTypeName( int typeId )
+    {
+        return graphDb.getRelationshipTypeHolder().getRelationshipType( typeId ).name();
+    }
+
+    static long longFromIntAndMod( long base, long modifier )
+    {
+        return modifier == 0 && base == 0xFFFFFFFFL ? NO_ID : base | modifier;
+    }
+}
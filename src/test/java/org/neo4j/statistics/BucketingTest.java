@@ -0,0 +1,69 @@
+package org.neo4j.statistics;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BucketingTest
+{
+    @Test
+    public void testLinearBucketing()
+    {
+        Bucketing bucketing = Bucketing.parse( "5" );
+        assertEquals( 0, bucketing.getChunkKeyForCount( 0 ) );
+        assertEquals( 1, bucketing.getChunkKeyForCount( 1 ) );
+        assertEquals( 1, bucketing.getChunkKeyForCount( 5 ) );
+        assertEquals( 2, bucketing.getChunkKeyForCount( 6 ) );
+        assertEquals( 6, bucketing.getCountBaseForChunkKey( 2 ) );
+        assertEquals( 10, bucketing.getEndOfChunkForChunkKey( 2 ) );
+    }
+
+    @Test
+    public void testLogLinearBucketingIsExactForSmallCounts()
+    {
+        Bucketing bucketing = Bucketing.parse( "log:2" );
+        for ( long count = 0; count < 200; count++ )
+        {
+            long key = bucketing.getChunkKeyForCount( count );
+            assertEquals( count, bucketing.getCountBaseForChunkKey( key ) );
+            assertEquals( count, bucketing.getEndOfChunkForChunkKey( key ) );
+        }
+    }
+
+    @Test
+    public void testLogLinearBucketsContainTheirCountsWithBoundedError()
+    {
+        Bucketing bucketing = new LogLinearBucketing( 2 );
+        Random random = new Random( 42 );
+        long previousKey = -1;
+        for ( long count = 0; count < 100000; count++ )
+        {
+            long key = bucketing.getChunkKeyForCount( count );
+            assertTrue( "Keys must not decrease.", key >= previousKey );
+            previousKey = key;
+        }
+        for ( int i = 0; i < 100000; i++ )
+        {
+            long count = random.nextLong() >>> ( 1 + random.nextInt( 63 ) );
+            long key = bucketing.getChunkKeyForCount( count );
+            long base = bucketing.getCountBaseForChunkKey( key );
+            long end = bucketing.getEndOfChunkForChunkKey( key );
+            assertTrue( "Count " + count + " outside " + base + "-" + end, base <= count && count <= end );
+            assertTrue( "Bucket " + base + "-" + end + " too wide.", end - base <= base / 100 );
+        }
+        assertTrue( "Too many buckets.", bucketing.getChunkKeyForCount( Long.MAX_VALUE ) < 10000 );
+    }
+
+    @Test
+    public void testHistogramWithLogLinearBuckets()
+    {
+        LongHistogram histogram = new LongHistogram( new LogLinearBucketing( 1 ) );
+        histogram.record( 1, 5 );
+        histogram.record( 2, 20000000 );
+        histogram.record( 3, 20000001 );
+        assertEquals( "Wrong number of chunks.", 2, histogram.getChunks().size() );
+    }
+}
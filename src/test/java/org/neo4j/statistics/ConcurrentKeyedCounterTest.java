@@ -0,0 +1,82 @@
+package org.neo4j.statistics;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+
+public class ConcurrentKeyedCounterTest
+{
+    @Test
+    public void testCountsFromManyThreadsAreMerged() throws InterruptedException
+    {
+        final ConcurrentKeyedCounter<String> counter = new ConcurrentKeyedCounter<String>();
+        final int threads = 8;
+        final int increments = 100000;
+        final CountDownLatch done = new CountDownLatch( threads );
+        for ( int i = 0; i < threads; i++ )
+        {
+            new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    for ( int j = 0; j < increments; j++ )
+                    {
+                        counter.incForKey( "a" );
+                        counter.incForKey( j % 2 == 0 ? "b" : "c", 2 );
+                    }
+                    done.countDown();
+                }
+            }.start();
+        }
+        done.await();
+
+        assertEquals( "Wrong count.", threads * increments, counter.getForKey( "a" ) );
+        assertEquals( "Wrong count.", threads * increments, counter.getForKey( "b" ) );
+        KeyedCounter<String> snapshot = counter.snapshot();
+        assertEquals( "Wrong count.", threads * increments, snapshot.getForKey( "c" ) );
+        assertEquals( "Wrong keys.", 3, snapshot.getCounters().size() );
+    }
+
+    @Test
+    public void testCountsBeyondIntRange()
+    {
+        ConcurrentKeyedCounter<String> counter = new ConcurrentKeyedCounter<String>();
+        counter.incForKey( "a", Integer.MAX_VALUE );
+        counter.incForKey( "a", Integer.MAX_VALUE );
+        assertEquals( "Wrong count.", 2L * Integer.MAX_VALUE, counter.getForKey( "a" ) );
+        assertEquals( "Wrong count.", 2L * Integer.MAX_VALUE, counter.snapshot().getForKey( "a" ) );
+    }
+
+    @Test
+    public void testCountsFromShortLivedThreads() throws InterruptedException
+    {
+        final ConcurrentKeyedCounter<String> counter = new ConcurrentKeyedCounter<String>();
+        int threads = 500;
+        for ( int i = 0; i < threads; i++ )
+        {
+            Thread thread = new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    counter.incForKey( "a" );
+                }
+            };
+            thread.start();
+            thread.join();
+        }
+        assertEquals( "Wrong count.", threads, counter.getForKey( "a" ) );
+    }
+
+    @Test
+    public void testStripesArePowersOfTwoBoundedByProcessors()
+    {
+        assertEquals( 2, ConcurrentKeyedCounter.stripes( 1 ) );
+        assertEquals( 8, ConcurrentKeyedCounter.stripes( 3 ) );
+        assertEquals( 8, ConcurrentKeyedCounter.stripes( 4 ) );
+        assertEquals( 64, ConcurrentKeyedCounter.stripes( 1000 ) );
+    }
+}
@@ -0,0 +1,61 @@
+package org.neo4j.statistics;
+
+import org.junit.Test;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.DynamicRelationshipType;
+import org.neo4j.graphdb.Node;
+import org.neo4j.statistics.processors.DegreeMatrix;
+import org.neo4j.statistics.snapshot.StatisticsSnapshot;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class DegreeMatrixTest extends Neo4jTestCase
+{
+    private static final DynamicRelationshipType FOLLOWS = DynamicRelationshipType.withName( "FOLLOWS" );
+    private static final DynamicRelationshipType POSTED = DynamicRelationshipType.withName( "POSTED" );
+
+    @Test
+    public void testDegreesPerTypeAndDirection() throws IOException
+    {
+        Node celebrity = graphDb().createNode();
+        for ( int i = 0; i < 50; i++ )
+        {
+            Node follower = graphDb().createNode();
+            follower.createRelationshipTo( celebrity, FOLLOWS );
+            if ( i < 10 ) follower.createRelationshipTo( celebrity, FOLLOWS );
+        }
+        for ( int i = 0; i < 3; i++ )
+        {
+            celebrity.createRelationshipTo( graphDb().createNode(), POSTED );
+        }
+        celebrity.createRelationshipTo( celebrity, FOLLOWS );
+        restartTx();
+
+        DegreeMatrix matrix = new DegreeMatrix( graphDb(), System.out, new LinearBucketing( 1 ), false );
+        matrix.process();
+        System.out.println( matrix );
+
+        LongHistogram followsIn = matrix.getHistogram( "FOLLOWS", Direction.INCOMING );
+        assertEquals( 1, followsIn.getTotalSamples() );
+        assertEquals( 60, followsIn.getPercentile( 100 ) );
+        LongHistogram followsOut = matrix.getHistogram( "FOLLOWS", Direction.OUTGOING );
+        assertEquals( 50, followsOut.getTotalSamples() );
+        assertEquals( 1, followsOut.getPercentile( 50 ) );
+        assertEquals( 2, followsOut.getPercentile( 90 ) );
+        assertEquals( 1, matrix.getHistogram( "FOLLOWS", Direction.BOTH ).getTotalCounts() );
+        assertEquals( 3, matrix.getHistogram( "POSTED", Direction.OUTGOING ).getPercentile( 100 ) );
+        assertEquals( 3, matrix.getHistogram( "POSTED", Direction.INCOMING ).getTotalSamples() );
+        assertNull( matrix.getHistogram( "LIKES", Direction.OUTGOING ) );
+
+        DegreeMatrix raw = new DegreeMatrix( graphDb(), System.out, new LinearBucketing( 1 ), true );
+        raw.process();
+        StatisticsSnapshot expected = new StatisticsSnapshot( "degrees", 0 );
+        matrix.snapshotTo( expected );
+        StatisticsSnapshot actual = new StatisticsSnapshot( "degrees", 0 );
+        raw.snapshotTo( actual );
+        assertEquals( expected, actual );
+    }
+}
@@ -0,0 +1,46 @@
+package org.neo4j.statistics;
+
+import org.junit.Test;
+import org.neo4j.graphdb.DynamicRelationshipType;
+import org.neo4j.graphdb.Node;
+import org.neo4j.statistics.processors.DistinctValues;
+import org.neo4j.statistics.processors.DistinctValuesFactory;
+import org.neo4j.statistics.snapshot.StatisticsSnapshot;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DistinctValuesTest extends Neo4jTestCase
+{
+    @Test
+    public void testDistinctValuesPerKey()
+    {
+        Node previous = graphDb().createNode();
+        for ( int i = 0; i < 2000; i++ )
+        {
+            Node node = graphDb().createNode();
+            node.setProperty( "uuid", "uuid-" + i );
+            node.setProperty( "status", i % 3 == 0 ? "active" : i % 3 == 1 ? "blocked" : "deleted" );
+            previous.createRelationshipTo( node, DynamicRelationshipType.withName( "NEXT" ) ).setProperty( "weight", i % 100 );
+            previous = node;
+        }
+        restartTx();
+
+        DistinctValues distinct = (DistinctValues) new DistinctValuesFactory().getProcessor( graphDb(), Arrays.asList( "12" ), System.out );
+        distinct.process();
+        System.out.println( distinct );
+
+        assertEquals( 2000, distinct.getCount( "uuid" ) );
+        assertTrue( Math.abs( distinct.getDistinct( "uuid" ) - 2000 ) <= 3 * distinct.getSketch( "uuid" ).getStandardError() * 2000 );
+        assertEquals( 3, distinct.getDistinct( "status" ) );
+        assertEquals( 100, distinct.getDistinct( "weight" ) );
+        assertEquals( 0, distinct.getDistinct( "missing" ) );
+
+        StatisticsSnapshot snapshot = new StatisticsSnapshot( "distinct" );
+        distinct.snapshotTo( snapshot );
+        assertEquals( Long.valueOf( 3 ), snapshot.getSection( "distinct" ).get( "status" ) );
+        assertEquals( Long.valueOf( 2000 ), snapshot.getSection( "keys" ).get( "status" ) );
+    }
+}
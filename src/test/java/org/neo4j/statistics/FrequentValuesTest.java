@@ -0,0 +1,63 @@
+package org.neo4j.statistics;
+
+import org.junit.Test;
+import org.neo4j.graphdb.Node;
+import org.neo4j.statistics.processors.FrequentValues;
+import org.neo4j.statistics.processors.FrequentValuesFactory;
+import org.neo4j.statistics.snapshot.StatisticsSnapshot;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+public class FrequentValuesTest extends Neo4jTestCase
+{
+    @Test
+    public void testMostFrequentValuesPerKey()
+    {
+        for ( int i = 0; i < 1000; i++ )
+        {
+            Node node = graphDb().createNode();
+            node.setProperty( "status", i % 10 == 0 ? "blocked" : i % 10 < 4 ? "deleted" : "active" );
+            node.setProperty( "tags", i % 2 == 0 ? new String[]{"a", "b"} : new String[]{"c"} );
+        }
+        restartTx();
+
+        FrequentValues frequent = (FrequentValues) new FrequentValuesFactory().getProcessor( graphDb(), Arrays.asList( "2" ), System.out );
+        frequent.process();
+        System.out.println( frequent );
+
+        HeavyHitters status = frequent.getHeavyHitters( "status" );
+        int[] indexes = status.sortedIndexes();
+        assertEquals( 2, indexes.length );
+        assertEquals( "active", status.getValue( indexes[0] ) );
+        assertEquals( 600, status.getCount( indexes[0] ) );
+        assertEquals( "deleted", status.getValue( indexes[1] ) );
+        assertEquals( 300, status.getCount( indexes[1] ) );
+        assertEquals( 0, status.getError( indexes[1] ) );
+        assertEquals( 100, status.estimate( "blocked" ) );
+
+        StatisticsSnapshot snapshot = new StatisticsSnapshot( "frequent" );
+        frequent.snapshotTo( snapshot );
+        assertEquals( Long.valueOf( 500 ), snapshot.getSection( "top tags" ).get( "[a, b]" ) );
+        assertEquals( Long.valueOf( 500 ), snapshot.getSection( "top tags" ).get( "[c]" ) );
+    }
+
+    @Test
+    public void testSnapshotKeepsValuesWithCommonPrefixApart()
+    {
+        String prefix = "http://example.org/a/rather/long/path/to/some/resource/";
+        for ( int i = 0; i < 50; i++ )
+        {
+            graphDb().createNode().setProperty( "url", prefix + ( i < 30 ? "first" : "second" ) );
+        }
+        restartTx();
+
+        FrequentValues frequent = (FrequentValues) new FrequentValuesFactory().getProcessor( graphDb(), Arrays.asList( "2" ), System.out );
+        frequent.process();
+        StatisticsSnapshot snapshot = new StatisticsSnapshot( "frequent" );
+        frequent.snapshotTo( snapshot );
+        assertEquals( Long.valueOf( 30 ), snapshot.getSection( "top url" ).get( prefix + "first" ) );
+        assertEquals( Long.valueOf( 20 ), snapshot.getSection( "top url" ).get( prefix + "second" ) );
+    }
+}
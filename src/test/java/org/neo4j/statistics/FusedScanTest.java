@@ -0,0 +1,138 @@
+package org.neo4j.statistics;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.DynamicRelationshipType;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.statistics.processors.DegreeMatrix;
+import org.neo4j.statistics.processors.RawRelationshipsPerNodeHistogram;
+import org.neo4j.statistics.processors.RelationshipTypeCounts;
+import org.neo4j.statistics.processors.RelationshipsPerNodeHistogram;
+import org.neo4j.statistics.processors.Supernodes;
+import org.neo4j.tooling.GlobalGraphOperations;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class FusedScanTest extends Neo4jTestCase
+{
+    private static final DynamicRelationshipType REL_TYPE = DynamicRelationshipType.withName( "TEST" );
+    private static final DynamicRelationshipType REL_TYPE2 = DynamicRelationshipType.withName( "TEST2" );
+
+    @Before
+    public void cleanDb()
+    {
+        for ( Node node : GlobalGraphOperations.at( graphDb() ).getAllNodes() )
+        {
+            if ( node.getId() == 0 )
+            {
+                continue;
+            }
+            for ( Relationship rel : node.getRelationships() )
+            {
+                rel.delete();
+            }
+            node.delete();
+        }
+        restartTx();
+    }
+
+    @Test
+    public void testFusedScanMatchesSeparateScans()
+    {
+        Node node = graphDb().createNode();
+        node.createRelationshipTo( graphDb().createNode(), REL_TYPE );
+        node.createRelationshipTo( graphDb().createNode(), REL_TYPE2 );
+        node.createRelationshipTo( node, REL_TYPE2 );
+        restartTx();
+
+        RelationshipsPerNodeHistogram fusedHisto = new RelationshipsPerNodeHistogram( graphDb(), System.out, 1 );
+        RelationshipTypeCounts fusedCounts = new RelationshipTypeCounts( graphDb(), System.out );
+        FusedScan fusedScan = new FusedScan( graphDb(), System.out );
+        fusedScan.add( "histo", fusedHisto );
+        fusedScan.add( "reltypes", fusedCounts );
+        fusedScan.process();
+
+        RelationshipsPerNodeHistogram histo = new RelationshipsPerNodeHistogram( graphDb(), System.out, 1 );
+        histo.run();
+        RelationshipTypeCounts counts = new RelationshipTypeCounts( graphDb(), System.out );
+        counts.run();
+
+        assertEquals( "Wrong histogram.", histo.getCounts(), fusedHisto.getCounts() );
+        assertEquals( "Wrong rel type counts.", counts.getResult(), fusedCounts.getResult() );
+        assertEquals( "Wrong rel count.", 3, fusedCounts.getResult().get( "TEST" ).getCount() + fusedCounts.getResult().get( "TEST2" ).getCount() );
+    }
+
+    @Test
+    public void testFusedSupernodesReportBreakdowns()
+    {
+        Node big = graphDb().createNode();
+        for ( int i = 0; i < 3; i++ )
+        {
+            big.createRelationshipTo( graphDb().createNode(), REL_TYPE );
+        }
+        graphDb().createNode().createRelationshipTo( big, REL_TYPE2 );
+        restartTx();
+
+        Supernodes supernodes = new Supernodes( graphDb(), System.out, 1, false );
+        FusedScan fusedScan = new FusedScan( graphDb(), System.out );
+        fusedScan.add( "supernodes", supernodes );
+        fusedScan.process();
+
+        Map<String, Counter> expected = new HashMap<String, Counter>();
+        expected.put( "TEST OUTGOING", new Counter( 3 ) );
+        expected.put( "TEST2 INCOMING", new Counter( 1 ) );
+        assertEquals( big.getId(), supernodes.getNodeIds()[0] );
+        assertEquals( "Wrong breakdown.", expected, supernodes.getBreakdown( big.getId() ).getCounters() );
+    }
+
+    @Test
+    public void testRejectsOptionsThatCannotBeFused()
+    {
+        assertRejected( new Supernodes( graphDb(), System.out, 1, true ) );
+        assertRejected( new DegreeMatrix( graphDb(), System.out, new LinearBucketing( 1 ), true ) );
+        assertRejected( new RelationshipsPerNodeHistogram( graphDb(), System.out, 1, 4 ) );
+        assertRejected( new RawRelationshipsPerNodeHistogram( graphDb(), System.out, 1 ) );
+    }
+
+    private void assertRejected( StatisticsProcessor processor )
+    {
+        try
+        {
+            new FusedScan( graphDb(), System.out ).add( "processor", processor );
+            fail( "Fused " + processor.getClass().getSimpleName() + " with options that cannot be fused." );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            // expected
+        }
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void testRejectsProcessorsThatCannotBeFused()
+    {
+        new FusedScan( graphDb(), System.out ).add( "other", new StatisticsProcessor()
+        {
+            public void process()
+            {
+            }
+
+            public void reportProgress()
+            {
+            }
+
+            public void abort()
+            {
+            }
+
+            public Progress getProgress()
+            {
+                return new Progress();
+            }
+        } );
+    }
+}
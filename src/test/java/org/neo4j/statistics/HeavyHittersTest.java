@@ -0,0 +1,85 @@
+package org.neo4j.statistics;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HeavyHittersTest
+{
+    @Test
+    public void testFindsMostFrequentValuesInSkewedStream()
+    {
+        HeavyHitters top = new HeavyHitters( 5, 256, 5 );
+        Random random = new Random( 3 );
+        long[] actual = new long[5];
+        for ( int i = 0; i < 100000; i++ )
+        {
+            if ( random.nextInt( 2 ) == 0 )
+            {
+                // Half of the values are spread over 10000 rare ones
+                top.add( "rare" + random.nextInt( 10000 ) );
+            }
+            else
+            {
+                int hot = random.nextInt( 15 ) % 5;
+                actual[hot]++;
+                top.add( "hot" + hot );
+            }
+        }
+
+        assertEquals( 5, top.size() );
+        int[] indexes = top.sortedIndexes();
+        for ( int i = 0; i < indexes.length; i++ )
+        {
+            int hot = Integer.valueOf( ( (String) top.getValue( indexes[i] ) ).substring( 3 ) );
+            long count = top.getCount( indexes[i] );
+            assertTrue( count >= actual[hot] );
+            assertTrue( count - top.getError( indexes[i] ) <= actual[hot] );
+            assertTrue( i == 0 || count <= top.getCount( indexes[i - 1] ) );
+        }
+    }
+
+    @Test
+    public void testFindsMonitoredValuesWhileTheyAreReplaced()
+    {
+        HeavyHitters top = new HeavyHitters( 4, 8, 2 );
+        Random random = new Random( 7 );
+        for ( int i = 0; i < 20000; i++ )
+        {
+            top.add( (long) random.nextInt( 64 ) );
+            for ( int index = 0; index < top.size(); index++ )
+            {
+                assertEquals( top.getCount( index ), top.estimate( top.getValue( index ) ) );
+            }
+        }
+        assertEquals( 4, top.size() );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void testRejectsNonPositiveK()
+    {
+        HeavyHitters.checkArguments( 0, 16, 2 );
+    }
+
+    @Test
+    public void testSketchNeverUndercounts()
+    {
+        CountMinSketch sketch = new CountMinSketch( 64, 4 );
+        for ( long value = 0; value < 1000; value++ )
+        {
+            sketch.add( ValueHash.hash( value ), value % 7 + 1 );
+        }
+        long overcount = 0;
+        for ( long value = 0; value < 1000; value++ )
+        {
+            long estimate = sketch.estimate( ValueHash.hash( value ) );
+            assertTrue( estimate >= value % 7 + 1 );
+            overcount = Math.max( overcount, estimate - ( value % 7 + 1 ) );
+        }
+        assertTrue( overcount <= 2 * sketch.getErrorBound() );
+        assertEquals( 142 * 28 + 21, sketch.getTotalCount() );
+    }
+}
@@ -0,0 +1,137 @@
+package org.neo4j.statistics;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class HistogramTest
+{
+    @Test
+    public void testMergeAddsChunksAndTotals()
+    {
+        Histogram<Long> histogram = new Histogram<Long>( 5 );
+        histogram.record( 1L, 0 );
+        histogram.record( 2L, 3 );
+        Histogram<Long> other = new Histogram<Long>( 5 );
+        other.record( 3L, 4 );
+        other.record( 4L, 7 );
+
+        histogram.merge( other );
+
+        Map<Long, Chunk<Long>> expected = new HashMap<Long, Chunk<Long>>();
+        expected.put( 0L, new Chunk<Long>( 1 ) );
+        expected.put( 1L, new Chunk<Long>( 2 ) );
+        expected.put( 2L, new Chunk<Long>( 1 ) );
+        assertEquals( "Wrong chunks.", expected, histogram.getChunks() );
+        assertEquals( "Wrong total samples.", 4, histogram.getTotalSamples() );
+        assertEquals( "Wrong total counts.", 14, histogram.getTotalCounts() );
+        assertEquals( "Wrong samples.", Arrays.asList( 2L, 3L ), histogram.getChunks().get( 1L ).getSamples() );
+    }
+
+    @Test
+    public void testMergeKeepsAtMostThreeSamples()
+    {
+        Chunk<Long> chunk = new Chunk<Long>();
+        chunk.record( 1L );
+        chunk.record( 2L );
+        Chunk<Long> other = new Chunk<Long>();
+        other.record( 3L );
+        other.record( 4L );
+
+        chunk.merge( other );
+
+        assertEquals( "Wrong count.", 4, chunk.getCount() );
+        assertEquals( "Wrong samples.", Arrays.asList( 1L, 2L, 3L ), chunk.getSamples() );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void testMergeRejectsDifferentChunkSizes()
+    {
+        new Histogram<Long>( 5 ).merge( new Histogram<Long>( 10 ) );
+    }
+
+    @Test
+    public void testLongHistogramMatchesHistogram()
+    {
+        Histogram<Long> histogram = new Histogram<Long>( 3 );
+        LongHistogram longHistogram = new LongHistogram( 3 );
+        Random random = new Random( 42 );
+        for ( long sample = 0; sample < 10000; sample++ )
+        {
+            int count = random.nextInt( 1000 );
+            histogram.record( sample, count );
+            longHistogram.record( sample, count );
+        }
+        assertEquals( "Wrong chunks.", histogram.getChunks(), longHistogram.getChunks() );
+        assertEquals( "Wrong report.", histogram.toString( "Nodes", "Rels" ), longHistogram.toString( "Nodes", "Rels" ) );
+    }
+
+    @Test
+    public void testLongHistogramMerge()
+    {
+        LongHistogram histogram = new LongHistogram( 5 );
+        histogram.record( 1L, 0 );
+        histogram.record( 2L, 3 );
+        histogram.record( 5L, 4 );
+        LongHistogram other = new LongHistogram( 5 );
+        other.record( 3L, 4 );
+        other.record( 4L, 7 );
+
+        histogram.merge( other );
+
+        Map<Long, Chunk<Long>> expected = new HashMap<Long, Chunk<Long>>();
+        expected.put( 0L, new Chunk<Long>( 1 ) );
+        expected.put( 1L, new Chunk<Long>( 3 ) );
+        expected.put( 2L, new Chunk<Long>( 1 ) );
+        assertEquals( "Wrong chunks.", expected, histogram.getChunks() );
+        assertEquals( "Wrong total samples.", 5, histogram.getTotalSamples() );
+        assertEquals( "Wrong total counts.", 18, histogram.getTotalCounts() );
+        assertEquals( "Wrong samples.", Arrays.asList( 2L, 5L, 3L ), histogram.getChunks().get( 1L ).getSamples() );
+    }
+
+    @Test
+    public void testLongHistogramKeepsCountsWhileGrowing()
+    {
+        LongHistogram histogram = new LongHistogram( new LinearBucketing( 1 ), false );
+        // Far more chunks than the initial table holds, so recording grows it several times
+        for ( long count = 1; count <= 1000; count++ )
+        {
+            histogram.recordCount( count );
+            histogram.recordCount( count );
+        }
+        Map<Long, Chunk<Long>> chunks = histogram.getChunks();
+        assertEquals( "Wrong number of chunks.", 1000, chunks.size() );
+        for ( long count = 1; count <= 1000; count++ )
+        {
+            assertEquals( "Wrong count for chunk " + count, 2, chunks.get( count ).getCount() );
+        }
+        assertEquals( "Wrong total samples.", 2000, histogram.getTotalSamples() );
+    }
+
+    @Test
+    public void testLongHistogramPercentiles()
+    {
+        LongHistogram exact = new LongHistogram( new LinearBucketing( 1 ), false );
+        for ( long count = 1; count <= 100; count++ )
+        {
+            exact.recordCount( count );
+        }
+        assertEquals( 1, exact.getPercentile( 0 ) );
+        assertEquals( 50, exact.getPercentile( 50 ) );
+        assertEquals( 99, exact.getPercentile( 99 ) );
+        assertEquals( 100, exact.getPercentile( 100 ) );
+
+        LongHistogram chunked = new LongHistogram( 10, false );
+        for ( long count = 1; count <= 100; count++ )
+        {
+            chunked.recordCount( count );
+        }
+        assertEquals( "Percentile rounds up to the end of its chunk.", 60, chunked.getPercentile( 51 ) );
+        assertEquals( 0, new LongHistogram( 10, false ).getPercentile( 50 ) );
+    }
+}
@@ -0,0 +1,63 @@
+package org.neo4j.statistics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HyperLogLogTest
+{
+    @Test
+    public void testEstimatesWithinThreeStandardErrors()
+    {
+        for ( int cardinality : new int[]{10, 1000, 100000} )
+        {
+            HyperLogLog sketch = new HyperLogLog();
+            for ( int i = 0; i < cardinality; i++ )
+            {
+                sketch.add( ValueHash.hash( "value" + i ) );
+                // Repeated values must not count again
+                sketch.add( ValueHash.hash( "value" + i ) );
+            }
+            assertWithin( cardinality, sketch );
+        }
+    }
+
+    @Test
+    public void testMergeEstimatesUnion()
+    {
+        HyperLogLog evens = new HyperLogLog( 10 );
+        HyperLogLog odds = new HyperLogLog( 10 );
+        HyperLogLog all = new HyperLogLog( 10 );
+        for ( long i = 0; i < 50000; i++ )
+        {
+            ( i % 2 == 0 ? evens : odds ).add( ValueHash.hash( i ) );
+            all.add( ValueHash.hash( i ) );
+        }
+        evens.merge( odds );
+        assertEquals( all.cardinality(), evens.cardinality() );
+        assertWithin( 50000, evens );
+    }
+
+    @Test
+    public void testHashDistinguishesTypes()
+    {
+        assertEquals( ValueHash.hash( "a" ), ValueHash.hash( new String( "a" ) ) );
+        assertEquals( ValueHash.hash( new int[]{1, 2} ), ValueHash.hash( new int[]{1, 2} ) );
+        assertTrue( ValueHash.hash( 1 ) != ValueHash.hash( 1L ) );
+        assertTrue( ValueHash.hash( new String[]{"ab", "c"} ) != ValueHash.hash( new String[]{"a", "bc"} ) );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void testRejectsMergingDifferentPrecisions()
+    {
+        new HyperLogLog( 10 ).merge( new HyperLogLog( 12 ) );
+    }
+
+    private void assertWithin( long actual, HyperLogLog sketch )
+    {
+        long estimate = sketch.cardinality();
+        double error = 3 * sketch.getStandardError() * actual;
+        assertTrue( String.format( "Estimated %d, actual %d", estimate, actual ), Math.abs( estimate - actual ) <= Math.max( error, 1 ) );
+    }
+}
@@ -0,0 +1,69 @@
+package org.neo4j.statistics;
+
+import org.junit.Test;
+import org.neo4j.graphdb.Node;
+import org.neo4j.statistics.store.IdMapper;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IdMapperTest extends Neo4jTestCase
+{
+    @Test
+    public void testMapsInUseIdsDenselyBothWays()
+    {
+        Random random = new Random( 3 );
+        long highId = 10000;
+        long[] bits = new long[(int) ( ( highId + 63 ) / 64 )];
+        BitSet expected = new BitSet();
+        for ( int id = 0; id < highId; id++ )
+        {
+            // long runs of holes as well as scattered ones
+            if ( ( id / 640 ) % 3 != 1 && random.nextInt( 10 ) < 7 )
+            {
+                bits[id >>> 6] |= 1L << ( id & 63 );
+                expected.set( id );
+            }
+        }
+        IdMapper ids = new IdMapper( bits, highId );
+        assertEquals( expected.cardinality(), ids.size() );
+        int dense = 0;
+        for ( long id = 0; id < highId; id++ )
+        {
+            if ( expected.get( (int) id ) )
+            {
+                assertTrue( ids.isMapped( id ) );
+                assertEquals( dense, ids.toDense( id ) );
+                assertEquals( id, ids.toOriginal( dense ) );
+                dense++;
+            }
+            else
+            {
+                assertFalse( ids.isMapped( id ) );
+                assertEquals( IdMapper.NOT_MAPPED, ids.toDense( id ) );
+            }
+        }
+        assertEquals( IdMapper.NOT_MAPPED, ids.toDense( highId ) );
+        assertEquals( IdMapper.NOT_MAPPED, ids.toDense( -1 ) );
+    }
+
+    @Test
+    public void testSkipsDeletedNodes() throws Exception
+    {
+        Node first = graphDb().createNode();
+        Node deleted = graphDb().createNode();
+        Node last = graphDb().createNode();
+        restartTx();
+        deleted.delete();
+        restartTx();
+
+        IdMapper ids = IdMapper.fromNodeStore( graphDb() );
+        assertEquals( IdMapper.NOT_MAPPED, ids.toDense( deleted.getId() ) );
+        assertEquals( ids.toDense( first.getId() ) + 1, ids.toDense( last.getId() ) );
+        assertEquals( last.getId(), ids.toOriginal( ids.toDense( last.getId() ) ) );
+    }
+}
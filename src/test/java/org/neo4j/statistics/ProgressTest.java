@@ -0,0 +1,59 @@
+package org.neo4j.statistics;
+
+import org.junit.Test;
+import org.neo4j.graphdb.DynamicRelationshipType;
+import org.neo4j.graphdb.Node;
+import org.neo4j.statistics.processors.RawRelationshipTypeCounts;
+import org.neo4j.statistics.processors.RelationshipsPerNodeHistogram;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ProgressTest extends Neo4jTestCase
+{
+    @Test
+    public void testEstimatesTimeLeftFromThroughput() throws Exception
+    {
+        Progress progress = new Progress();
+        assertFalse( progress.isStarted() );
+        assertEquals( -1, progress.getEtaMillis() );
+
+        progress.start( 1000 );
+        Thread.sleep( 20 );
+        assertEquals( -1, progress.getEtaMillis() );
+        progress.set( 250 );
+        progress.add( 250 );
+        assertEquals( 500, progress.getProcessed() );
+        long eta = progress.getEtaMillis();
+        assertTrue( "ETA " + eta + " should be about the time taken so far.", eta > 0 && eta <= progress.getElapsedMillis() );
+
+        progress.finish();
+        assertEquals( 0, progress.getEtaMillis() );
+        assertTrue( progress.toString().contains( "500/1000" ) );
+    }
+
+    @Test
+    public void testProcessorsReportAllIdsScanned() throws IOException
+    {
+        Node previous = graphDb().createNode();
+        for ( int i = 0; i < 20; i++ )
+        {
+            Node node = graphDb().createNode();
+            previous.createRelationshipTo( node, DynamicRelationshipType.withName( "TEST" ) );
+            previous = node;
+        }
+        restartTx();
+
+        RawRelationshipTypeCounts counts = new RawRelationshipTypeCounts( graphDb(), System.out );
+        counts.process();
+        assertEquals( counts.getProgress().getTotal(), counts.getProgress().getProcessed() );
+
+        RelationshipsPerNodeHistogram histogram = new RelationshipsPerNodeHistogram( graphDb(), System.out, 1, 2 );
+        histogram.process();
+        assertTrue( histogram.getProgress().getTotal() >= 21 );
+        assertEquals( histogram.getProgress().getTotal(), histogram.getProgress().getProcessed() );
+    }
+}
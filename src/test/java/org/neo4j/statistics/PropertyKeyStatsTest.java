@@ -0,0 +1,73 @@
+package org.neo4j.statistics;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.DynamicRelationshipType;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.statistics.processors.PropertyKeyStats;
+import org.neo4j.tooling.GlobalGraphOperations;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class PropertyKeyStatsTest extends Neo4jTestCase
+{
+    @Before
+    public void cleanDb()
+    {
+        for ( Node node : GlobalGraphOperations.at( graphDb() ).getAllNodes() )
+        {
+            for ( Relationship rel : node.getRelationships() )
+            {
+                rel.delete();
+            }
+            for ( String key : node.getPropertyKeys() )
+            {
+                node.removeProperty( key );
+            }
+            if ( node.getId() != 0 )
+            {
+                node.delete();
+            }
+        }
+        restartTx();
+    }
+
+    @Test
+    public void testStatsPerKey()
+    {
+        for ( int i = 0; i < 20; i++ )
+        {
+            Node node = graphDb().createNode();
+            node.setProperty( "name", "node" + i );
+            node.setProperty( "age", i % 2 == 0 ? (Object) i : (Object) (long) i );
+            Relationship rel = node.createRelationshipTo( graphDb().createNode(), DynamicRelationshipType.withName( "KNOWS" ) );
+            rel.setProperty( "weights", new int[i] );
+        }
+        restartTx();
+
+        PropertyKeyStats stats = new PropertyKeyStats( graphDb(), System.out, new LinearBucketing( 4 ) );
+        stats.process();
+        System.out.println( stats );
+
+        assertEquals( 20, stats.getCount( "name" ) );
+        assertEquals( 10 * 5 + 10 * 6, stats.getTotalBytes( "name" ) );
+        assertEquals( 6, stats.getMaxLength( "name" ) );
+
+        assertEquals( 20, stats.getCount( "age" ) );
+        assertEquals( 10 * 4 + 10 * 8, stats.getTotalBytes( "age" ) );
+        Map<String, Counter> ageTypes = new HashMap<String, Counter>();
+        ageTypes.put( "Integer", new Counter( 10 ) );
+        ageTypes.put( "Long", new Counter( 10 ) );
+        assertEquals( ageTypes, stats.getTypeMix( "age" ).getCounters() );
+
+        assertEquals( 20, stats.getCount( "weights" ) );
+        assertEquals( 19 * 4, stats.getMaxLength( "weights" ) );
+        assertEquals( 190 * 4, stats.getTotalBytes( "weights" ) );
+
+        assertEquals( 0, stats.getCount( "missing" ) );
+    }
+}
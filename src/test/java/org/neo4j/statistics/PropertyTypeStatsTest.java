@@ -2,10 +2,40 @@ package org.neo4j.statistics;
 
 import org.junit.Test;
 
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.assertEquals;
+
 public class PropertyTypeStatsTest
 {
+    private static final Charset UTF8 = Charset.forName( "UTF-8" );
+
     @Test
     public void foo() {
 
     }
+
+    @Test
+    public void testUtf8LengthMatchesEncoder()
+    {
+        String[] values = {
+            "", "abc", "\u00e5\u00e4\u00f6", "\u20ac100", "\ud83d\ude00 smile",
+            "unpaired \ud83d high", "unpaired \ude00 low", "trailing \ud83d", "\u07ff\u0800\uffff"
+        };
+        for ( String value : values )
+        {
+            assertEquals( "Wrong length for " + value, value.getBytes( UTF8 ).length, PropertySizes.utf8Length( value ) );
+        }
+    }
+
+    @Test
+    public void testArrayLengths()
+    {
+        assertEquals( 12, PropertySizes.lengthOf( int[].class, new int[3] ) );
+        assertEquals( 24, PropertySizes.lengthOf( long[].class, new long[3] ) );
+        assertEquals( 6, PropertySizes.lengthOf( short[].class, new short[3] ) );
+        assertEquals( 3, PropertySizes.lengthOf( byte[].class, new byte[3] ) );
+        assertEquals( 3, PropertySizes.lengthOf( double[].class, new double[3] ) );
+        assertEquals( 2, PropertySizes.lengthOf( String[].class, new String[] { "a", "bcd" } ) );
+    }
 }
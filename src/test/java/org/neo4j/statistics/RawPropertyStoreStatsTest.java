@@ -0,0 +1,80 @@
+package org.neo4j.statistics;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.kernel.impl.nioneo.store.PropertyType;
+import org.neo4j.statistics.processors.RawPropertyStoreStats;
+import org.neo4j.statistics.store.DynamicRecords;
+import org.neo4j.tooling.GlobalGraphOperations;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RawPropertyStoreStatsTest extends Neo4jTestCase
+{
+    private static final int DEFAULT_BLOCK_SIZE = 128;
+
+    @Before
+    public void cleanDb()
+    {
+        for ( Node node : GlobalGraphOperations.at( graphDb() ).getAllNodes() )
+        {
+            for ( Relationship rel : node.getRelationships() )
+            {
+                rel.delete();
+            }
+            for ( String key : node.getPropertyKeys() )
+            {
+                node.removeProperty( key );
+            }
+            if ( node.getId() != 0 )
+            {
+                node.delete();
+            }
+        }
+        restartTx();
+    }
+
+    @Test
+    public void testReportsDynamicStoreUsage() throws IOException
+    {
+        char[] chars = new char[300];
+        Arrays.fill( chars, 'x' );
+        String longString = new String( chars );
+        long[] longArray = new long[200];
+        Arrays.fill( longArray, Long.MAX_VALUE );
+        for ( int i = 0; i < 10; i++ )
+        {
+            Node node = graphDb().createNode();
+            node.setProperty( "text", longString );
+            node.setProperty( "values", longArray );
+            node.setProperty( "count", i );
+        }
+        restartTx();
+
+        RawPropertyStoreStats stats = new RawPropertyStoreStats( graphDb(), System.out, new LinearBucketing( 10 ) );
+        stats.run();
+        System.out.println( stats );
+
+        assertEquals( 10, stats.getPropertyCount( PropertyType.STRING ) );
+        assertEquals( 10, stats.getPropertyCount( PropertyType.ARRAY ) );
+        assertEquals( 10, stats.getPropertyCount( PropertyType.INT ) );
+        assertEquals( 10, stats.getRecordsInUse() );
+
+        int stringDataSize = DEFAULT_BLOCK_SIZE - DynamicRecords.BLOCK_HEADER_SIZE;
+        long blocksPerString = ( 300 + stringDataSize - 1 ) / stringDataSize;
+        assertEquals( 10, stats.getStrings().getValues() );
+        assertEquals( 10 * blocksPerString, stats.getStrings().getBlocksInUse() );
+        assertEquals( 10 * 300, stats.getStrings().getDataBytes() );
+        assertEquals( 10 * ( blocksPerString * stringDataSize - 300 ), stats.getStrings().getSlackBytes() );
+        assertEquals( 10 * blocksPerString, stats.getStrings().getBlocksPerValue().getTotalCounts() );
+
+        assertEquals( 10, stats.getArrays().getValues() );
+        assertTrue( "Arrays should span several blocks.", stats.getArrays().getBlocksInUse() >= 10 * ( 200 * 8 / DEFAULT_BLOCK_SIZE ) );
+    }
+}
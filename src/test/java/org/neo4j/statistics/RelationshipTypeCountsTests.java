@@ -5,8 +5,10 @@ import org.junit.Test;
 import org.neo4j.graphdb.DynamicRelationshipType;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
+import org.neo4j.statistics.processors.RawRelationshipTypeCounts;
 import org.neo4j.statistics.processors.RelationshipTypeCounts;
 
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -69,6 +71,24 @@ public class RelationshipTypeCountsTests extends Neo4jTestCase
         assertEquals( "Wrong result.", expected, result );
     }
 
+    @Test
+    public void testRawStoreScanMatchesObjectScan() throws IOException
+    {
+        Node node = graphDb().createNode();
+        node.createRelationshipTo( graphDb().createNode(), REL_TYPE );
+        node.createRelationshipTo( graphDb().createNode(), REL_TYPE2 );
+        node.createRelationshipTo( graphDb().createNode(), REL_TYPE2 );
+        node.createRelationshipTo( graphDb().createNode(), REL_TYPE2 ).delete();
+        restartTx();
+        RawRelationshipTypeCounts rawCounts = new RawRelationshipTypeCounts( graphDb(), System.out );
+        rawCounts.run();
+        p( rawCounts );
+        expected.put( "TEST", new Counter( 1 ) );
+        expected.put( "TEST2", new Counter( 2 ) );
+        assertEquals( "Wrong result.", expected, rawCounts.getResult() );
+        assertEquals( "Wrong result.", getCounts().getResult(), rawCounts.getResult() );
+    }
+
     @Test
     public void testWriteRow()
     {
@@ -6,9 +6,11 @@ import org.neo4j.graphdb.DynamicRelationshipType;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.helpers.collection.Iterables;
+import org.neo4j.statistics.processors.RawRelationshipsPerNodeHistogram;
 import org.neo4j.statistics.processors.RelationshipsPerNodeHistogram;
 import org.neo4j.tooling.GlobalGraphOperations;
 
+import java.io.IOException;
 import java.util.*;
 
 import static org.junit.Assert.assertEquals;
@@ -132,6 +134,28 @@ public class RelationshipsPerNodeHistogramTest extends Neo4jTestCase
                 samples.containsAll(Arrays.asList(node1.getId(), node2.getId(), node3.getId())));
     }
 
+    @Test
+    public void testRawStoreWalkMatchesObjectScan() throws IOException
+    {
+        Node node = graphDb().createNode();
+        Node other = graphDb().createNode();
+        for ( int i = 0; i < 6; i++ )
+        {
+            node.createRelationshipTo( graphDb().createNode(), REL_TYPE );
+        }
+        other.createRelationshipTo( node, REL_TYPE );
+        node.createRelationshipTo( node, REL_TYPE );
+        node.createRelationshipTo( other, REL_TYPE ).delete();
+        restartTx();
+        RawRelationshipsPerNodeHistogram raw = new RawRelationshipsPerNodeHistogram( graphDb(), System.out, 2 );
+        raw.run();
+        p( raw );
+        RelationshipsPerNodeHistogram objects = getNodeHisto( 2 );
+        assertEquals( "Wrong result.", objects.getCounts(), raw.getCounts() );
+        assertEquals( "Wrong node count.", objects.getNodeCount(), raw.getNodeCount() );
+        assertEquals( "Wrong node count.", 9, raw.getNodeCount() );
+    }
+
     @Test
     public void testWriteRows() {
         StringBuilder stringBuilder = new StringBuilder();
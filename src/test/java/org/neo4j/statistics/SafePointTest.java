@@ -0,0 +1,83 @@
+package org.neo4j.statistics;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SafePointTest
+{
+    @Test
+    public void testSnapshotsAreTakenBetweenUpdates() throws Exception
+    {
+        final CountingResult result = new CountingResult();
+        final SafePoint safePoint = new SafePoint( result );
+        safePoint.enter();
+        Thread scan = new Thread( new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    for ( int i = 0; i < 2000000; i++ )
+                    {
+                        result.count( i % 1000 );
+                        safePoint.reached();
+                    }
+                }
+                finally
+                {
+                    safePoint.exit();
+                }
+            }
+        } );
+        scan.start();
+
+        for ( int i = 0; i < 20; i++ )
+        {
+            String snapshot = safePoint.snapshot();
+            String[] totals = snapshot.split( " " );
+            assertEquals( "Torn snapshot.", totals[0], totals[1] );
+        }
+        scan.join();
+        assertTrue( safePoint.getEpoch() > 0 );
+        assertEquals( "2000000 2000000", safePoint.snapshot() );
+    }
+
+    @Test
+    public void testRendersDirectlyWhenNotScanning()
+    {
+        CountingResult result = new CountingResult();
+        result.count( 1 );
+        SafePoint safePoint = new SafePoint( result );
+        assertEquals( "1 1", safePoint.snapshot() );
+        assertEquals( 0, safePoint.getEpoch() );
+    }
+
+    private static class CountingResult
+    {
+        private final Map<Integer, Long> counts = new HashMap<Integer, Long>();
+        private long total;
+
+        void count( int key )
+        {
+            Long count = counts.get( key );
+            counts.put( key, count == null ? 1 : count + 1 );
+            total++;
+        }
+
+        @Override
+        public String toString()
+        {
+            long sum = 0;
+            for ( long count : counts.values() )
+            {
+                sum += count;
+            }
+            return sum + " " + total;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package org.neo4j.statistics;
+
+import org.junit.Test;
+import org.neo4j.graphdb.DynamicRelationshipType;
+import org.neo4j.graphdb.Node;
+import org.neo4j.statistics.processors.PropertyTypeStats;
+import org.neo4j.statistics.processors.RelationshipTypeCounts;
+import org.neo4j.statistics.processors.RelationshipTypeCountsFactory;
+import org.neo4j.statistics.processors.RelationshipsPerNodeHistogramFactory;
+import org.neo4j.statistics.store.StoreAccess;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SampledScanTest extends Neo4jTestCase
+{
+    @Test
+    public void testEstimatesCountsWithinConfidenceInterval()
+    {
+        List<Node> nodes = new ArrayList<Node>();
+        for ( int i = 0; i < 1000; i++ )
+        {
+            Node node = graphDb().createNode();
+            node.setProperty( "name", "node" + i );
+            if ( i % 4 == 0 ) node.setProperty( "weight", i );
+            nodes.add( node );
+        }
+        Random random = new Random( 5 );
+        for ( int i = 0; i < 3000; i++ )
+        {
+            nodes.get( random.nextInt( nodes.size() ) ).createRelationshipTo( nodes.get( random.nextInt( nodes.size() ) ),
+                DynamicRelationshipType.withName( i % 3 == 0 ? "KNOWS" : "LIKES" ) );
+        }
+        // Leave holes in the node store
+        for ( int i = 0; i < 100; i++ )
+        {
+            Node node = graphDb().createNode();
+            node.delete();
+        }
+        restartTx();
+
+        SampledScan.Accumulators typeCounts = new SampledScan.Accumulators()
+        {
+            @Override
+            public StatisticsProcessor newAccumulator()
+            {
+                return new RelationshipTypeCounts( graphDb(), System.out );
+            }
+        };
+        SampledScan types = new SampledScan( graphDb(), System.out, typeCounts, SampledScan.Entities.RELATIONSHIPS, "600", new Random( 11 ) );
+        types.process();
+        assertEquals( 600, types.getHits() );
+        assertWithin( 1000, types, "types", "KNOWS" );
+        assertWithin( 2000, types, "types", "LIKES" );
+        assertWithin( 3000, types, "totals", "relationships" );
+
+        SampledScan.Accumulators typeStats = new SampledScan.Accumulators()
+        {
+            @Override
+            public StatisticsProcessor newAccumulator()
+            {
+                return new PropertyTypeStats( graphDb(), System.out, new LinearBucketing( 5 ) );
+            }
+        };
+        SampledScan properties = new SampledScan( graphDb(), System.out, typeStats, SampledScan.Entities.NODES, "0.5", new Random( 13 ) );
+        properties.process();
+        assertEquals( ( new StoreAccess( graphDb() ).getHighId( Node.class ) + 1 ) / 2, properties.getDraws() );
+        assertTrue( properties.getHits() < properties.getDraws() );
+        assertWithin( 1000, properties, "types", "String" );
+        assertWithin( 250, properties, "types", "Integer" );
+        assertTrue( properties.toString().contains( "Integer" ) );
+    }
+
+    @Test
+    public void testSampleArgumentsSelectSampling()
+    {
+        List<String> args = new ArrayList<String>( Arrays.asList( "log:2", "sample", "0.1" ) );
+        assertEquals( "0.1", SampledScan.removeSampleSpec( args ) );
+        assertEquals( Arrays.asList( "log:2" ), args );
+        assertNull( SampledScan.removeSampleSpec( args ) );
+
+        assertTrue( new RelationshipTypeCountsFactory().getProcessor( graphDb(), Arrays.asList( "sample", "100" ), System.out ) instanceof SampledScan );
+        assertTrue( new RelationshipsPerNodeHistogramFactory().getProcessor( graphDb(), Arrays.asList( "5", "sample", "100" ), System.out ) instanceof SampledScan );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void testRejectsSamplingRawScans()
+    {
+        new RelationshipsPerNodeHistogramFactory().getProcessor( graphDb(), Arrays.asList( "raw", "sample", "100" ), System.out );
+    }
+
+    private void assertWithin( long actual, SampledScan sample, String section, String key )
+    {
+        long estimate = sample.estimate( section, key );
+        long confidence = sample.confidence( section, key );
+        assertTrue( String.format( "%s %s estimated %d +/- %d, actual %d", section, key, estimate, confidence, actual ),
+            Math.abs( estimate - actual ) <= confidence );
+    }
+}
@@ -0,0 +1,92 @@
+package org.neo4j.statistics;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.DynamicRelationshipType;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.statistics.processors.Supernodes;
+import org.neo4j.tooling.GlobalGraphOperations;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SupernodesTest extends Neo4jTestCase
+{
+    private static final DynamicRelationshipType FOLLOWS = DynamicRelationshipType.withName( "FOLLOWS" );
+    private static final DynamicRelationshipType POSTED = DynamicRelationshipType.withName( "POSTED" );
+
+    @Before
+    public void cleanDb()
+    {
+        for ( Node node : GlobalGraphOperations.at( graphDb() ).getAllNodes() )
+        {
+            if ( node.getId() == 0 )
+            {
+                continue;
+            }
+            for ( Relationship rel : node.getRelationships() )
+            {
+                rel.delete();
+            }
+            node.delete();
+        }
+        restartTx();
+    }
+
+    @Test
+    public void testKeepsHighestDegreeNodes() throws IOException
+    {
+        Node big = graphDb().createNode();
+        Node medium = graphDb().createNode();
+        for ( int i = 0; i < 5; i++ )
+        {
+            graphDb().createNode().createRelationshipTo( big, FOLLOWS );
+        }
+        big.createRelationshipTo( graphDb().createNode(), POSTED );
+        for ( int i = 0; i < 3; i++ )
+        {
+            medium.createRelationshipTo( graphDb().createNode(), POSTED );
+        }
+        restartTx();
+
+        Supernodes supernodes = new Supernodes( graphDb(), System.out, 2, false );
+        supernodes.run();
+        System.out.println( supernodes );
+
+        assertTrue( "Wrong nodes.", Arrays.equals( new long[] { big.getId(), medium.getId() }, supernodes.getNodeIds() ) );
+        assertTrue( "Wrong degrees.", Arrays.equals( new long[] { 6, 3 }, supernodes.getDegrees() ) );
+        Map<String, Counter> expected = new HashMap<String, Counter>();
+        expected.put( "FOLLOWS INCOMING", new Counter( 5 ) );
+        expected.put( "POSTED OUTGOING", new Counter( 1 ) );
+        assertEquals( "Wrong breakdown.", expected, supernodes.getBreakdown( big.getId() ).getCounters() );
+
+        Supernodes raw = new Supernodes( graphDb(), System.out, 2, true );
+        raw.run();
+        assertTrue( "Wrong nodes.", Arrays.equals( supernodes.getNodeIds(), raw.getNodeIds() ) );
+        assertTrue( "Wrong degrees.", Arrays.equals( supernodes.getDegrees(), raw.getDegrees() ) );
+        assertEquals( "Wrong raw breakdown.", expected, raw.getBreakdown( big.getId() ).getCounters() );
+    }
+
+    @Test
+    public void testTopKKeepsLargestValues()
+    {
+        TopK topK = new TopK( 3 );
+        long[] values = { 5, 1, 9, 3, 7, 2, 8 };
+        for ( int i = 0; i < values.length; i++ )
+        {
+            topK.offer( i, values[i] );
+        }
+        int[] indexes = topK.sortedIndexes();
+        assertEquals( "Wrong size.", 3, indexes.length );
+        assertEquals( 9, topK.getValue( indexes[0] ) );
+        assertEquals( 8, topK.getValue( indexes[1] ) );
+        assertEquals( 7, topK.getValue( indexes[2] ) );
+        assertEquals( 2, topK.getId( indexes[0] ) );
+    }
+}
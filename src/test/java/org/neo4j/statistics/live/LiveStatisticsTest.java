@@ -0,0 +1,82 @@
+package org.neo4j.statistics.live;
+
+import org.junit.Test;
+import org.neo4j.graphdb.DynamicRelationshipType;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.statistics.LinearBucketing;
+import org.neo4j.statistics.Neo4jTestCase;
+
+import static org.junit.Assert.assertEquals;
+
+public class LiveStatisticsTest extends Neo4jTestCase
+{
+    private static final DynamicRelationshipType KNOWS = DynamicRelationshipType.withName( "KNOWS" );
+    private static final DynamicRelationshipType LIKES = DynamicRelationshipType.withName( "LIKES" );
+
+    @Test
+    public void testFollowsCommittedChanges()
+    {
+        restartTx();
+        LiveStatistics live = LiveStatistics.register( graphDb(), new LinearBucketing( 1 ) );
+        try
+        {
+            long nodesBefore = live.getNodeCount();
+            long knowsBefore = live.getRelationshipCount( "KNOWS" );
+            long stringsBefore = live.getPropertyCount( String.class );
+
+            Node a = graphDb().createNode();
+            Node b = graphDb().createNode();
+            Node c = graphDb().createNode();
+            a.setProperty( "age", 42 );
+            b.setProperty( "name", "b" );
+            c.setProperty( "weight", 1.5 );
+            Relationship ab = a.createRelationshipTo( b, KNOWS );
+            ab.setProperty( "since", 2001L );
+            Relationship bc = b.createRelationshipTo( c, LIKES );
+            c.createRelationshipTo( c, LIKES );
+            restartTx();
+            assertEquals( nodesBefore + 3, live.getNodeCount() );
+            assertEquals( knowsBefore + 1, live.getRelationshipCount( "KNOWS" ) );
+            assertEquals( stringsBefore + 1, live.getPropertyCount( String.class ) );
+            assertMatchesScan( live );
+
+            a.setProperty( "age", "forty-two" );
+            b.removeProperty( "name" );
+            ab.delete();
+            bc.delete();
+            for ( Relationship rel : c.getRelationships() )
+            {
+                rel.delete();
+            }
+            c.delete();
+            a.createRelationshipTo( b, LIKES );
+            restartTx();
+            assertEquals( nodesBefore + 2, live.getNodeCount() );
+            assertEquals( knowsBefore, live.getRelationshipCount( "KNOWS" ) );
+            assertEquals( stringsBefore + 1, live.getPropertyCount( String.class ) );
+            assertMatchesScan( live );
+
+            graphDb().createNode().createRelationshipTo( a, KNOWS );
+            restartTx( false );
+            assertEquals( nodesBefore + 2, live.getNodeCount() );
+            assertMatchesScan( live );
+        }
+        finally
+        {
+            live.unregister();
+        }
+    }
+
+    private void assertMatchesScan( LiveStatistics live )
+    {
+        LiveStatistics scanned = new LiveStatistics( graphDb(), new LinearBucketing( 1 ) );
+        scanned.seed();
+        assertEquals( scanned.getNodeCount(), live.getNodeCount() );
+        assertEquals( scanned.getRelationshipCount(), live.getRelationshipCount() );
+        assertEquals( scanned.getPropertyCount(), live.getPropertyCount() );
+        assertEquals( scanned.getRelationshipTypeCounts(), live.getRelationshipTypeCounts() );
+        assertEquals( scanned.getDegreeHistogram(), live.getDegreeHistogram() );
+        assertEquals( scanned.getPropertyTypeCounts(), live.getPropertyTypeCounts() );
+    }
+}
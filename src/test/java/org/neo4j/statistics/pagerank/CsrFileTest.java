@@ -0,0 +1,106 @@
+package org.neo4j.statistics.pagerank;
+
+import org.junit.Test;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.DynamicRelationshipType;
+import org.neo4j.graphdb.Node;
+import org.neo4j.statistics.Neo4jTestCase;
+import org.neo4j.statistics.store.IdMapper;
+import org.neo4j.statistics.store.StoreAccess;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CsrFileTest extends Neo4jTestCase {
+    private static final DynamicRelationshipType LINKS = DynamicRelationshipType.withName("LINKS");
+
+    @Test
+    public void testFileMatchesHeapSnapshot() throws Exception {
+        Node hub = graphDb().createNode();
+        for (int i = 0; i < 300; i++) {
+            Node node = graphDb().createNode();
+            node.createRelationshipTo(hub, LINKS);
+            hub.createRelationshipTo(node, LINKS);
+            if (i % 3 == 0) node.createRelationshipTo(node, LINKS);
+        }
+        graphDb().createNode().delete();
+        restartTx();
+
+        Csr heap = Csr.build(graphDb(), Direction.INCOMING, IdMapper.fromNodeStore(graphDb()));
+        File streamed = new File(getBasePath(), "incoming-streamed.csr");
+        streamed.delete();
+        File randomAccess = new File(getBasePath(), "incoming-random.csr");
+        randomAccess.delete();
+        assertMatchesHeap(heap, CsrFile.openOrWrite(graphDb(), Direction.INCOMING, false, streamed), hub);
+        assertMatchesHeap(heap, CsrFile.openOrWrite(graphDb(), Direction.INCOMING, true, randomAccess), hub);
+        assertTrue("Varint deltas should be smaller than ints.", streamed.length() < randomAccess.length());
+    }
+
+    private void assertMatchesHeap(Csr heap, CsrFile snapshot, Node hub) throws Exception {
+        assertEquals(heap.nodeCount(), snapshot.nodeCount());
+        assertEquals(heap.nodeCount(), snapshot.ids().size());
+        assertEquals(hub.getId(), snapshot.ids().toOriginal(snapshot.ids().toDense(hub.getId())));
+        assertEquals(heap.edgeCount(), snapshot.edgeCount());
+        for (int node = 0; node < heap.nodeCount(); node++) {
+            assertEquals(heap.outDegree(node), snapshot.outDegree(node));
+            long[] expected = new long[heap.degree(node)];
+            for (int i = 0; i < expected.length; i++) {
+                expected[i] = heap.targets[heap.offsets[node] + i];
+            }
+            assertTrue("Wrong neighbours for " + node, Arrays.equals(expected, snapshot.neighbours(node)));
+            for (int i = 0; i < expected.length; i++) {
+                assertEquals(expected[i], snapshot.neighbour(node, i));
+            }
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            double[] fromHeap = new PowerIteration(heap, 0.85, executor).run(1e-10, 100);
+            double[] fromFile = new PowerIteration(snapshot, 0.85, executor).run(1e-10, 100);
+            assertTrue("Ranks differ between snapshots.", Arrays.equals(fromHeap, fromFile));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testRewritesStaleSnapshot() throws Exception {
+        graphDb().createNode();
+        restartTx();
+        File file = new File(getBasePath(), "stale.csr");
+        file.delete();
+        CsrFile first = CsrFile.openOrWrite(graphDb(), Direction.INCOMING, false, file);
+
+        graphDb().createNode().createRelationshipTo(graphDb().createNode(), LINKS);
+        restartTx();
+        assertFalse(first.matches(new StoreAccess(graphDb()), Direction.INCOMING));
+        CsrFile second = CsrFile.openOrWrite(graphDb(), Direction.INCOMING, false, file);
+        assertEquals(first.nodeCount() + 2, second.nodeCount());
+        assertTrue(second.matches(new StoreAccess(graphDb()), Direction.INCOMING));
+        assertFalse(second.matches(new StoreAccess(graphDb()), Direction.OUTGOING));
+
+        CsrFile third = CsrFile.openOrWrite(graphDb(), Direction.INCOMING, true, file);
+        assertTrue(third.isRandomAccess());
+        assertFalse(second.isRandomAccess());
+    }
+
+    @Test
+    public void testRewritesOlderVersion() throws Exception {
+        File file = new File(getBasePath(), "older.csr");
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.setLength(0);
+        raf.writeLong(CsrFile.MAGIC);
+        raf.writeInt(CsrFile.VERSION - 1);
+        raf.setLength(CsrFile.HEADER_SIZE);
+        raf.close();
+        CsrFile snapshot = CsrFile.openOrWrite(graphDb(), Direction.INCOMING, false, file);
+        assertTrue(snapshot.matches(new StoreAccess(graphDb()), Direction.INCOMING));
+    }
+}
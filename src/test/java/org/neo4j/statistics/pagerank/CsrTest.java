@@ -0,0 +1,52 @@
+package org.neo4j.statistics.pagerank;
+
+import org.junit.Test;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.DynamicRelationshipType;
+import org.neo4j.graphdb.Node;
+import org.neo4j.statistics.Neo4jTestCase;
+import org.neo4j.statistics.store.IdMapper;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CsrTest extends Neo4jTestCase {
+    private static final DynamicRelationshipType LINKS = DynamicRelationshipType.withName("LINKS");
+
+    @Test
+    public void testBuildsAdjacencyByDirection() throws Exception {
+        Node a = graphDb().createNode();
+        Node b = graphDb().createNode();
+        Node c = graphDb().createNode();
+        a.createRelationshipTo(b, LINKS);
+        a.createRelationshipTo(c, LINKS);
+        c.createRelationshipTo(b, LINKS);
+        restartTx();
+
+        IdMapper ids = IdMapper.fromNodeStore(graphDb());
+        Csr incoming = Csr.build(graphDb(), Direction.INCOMING, ids);
+        assertEquals(0, incoming.degree(id(ids, a)));
+        assertTrue(Arrays.equals(new int[]{id(ids, a), id(ids, c)}, neighbours(incoming, id(ids, b))));
+        assertTrue(Arrays.equals(new int[]{id(ids, a)}, neighbours(incoming, id(ids, c))));
+        assertEquals(2, incoming.outDegree[id(ids, a)]);
+        assertEquals(0, incoming.outDegree[id(ids, b)]);
+        assertEquals(1, incoming.outDegree[id(ids, c)]);
+
+        Csr outgoing = Csr.build(graphDb(), Direction.OUTGOING, ids);
+        assertTrue(Arrays.equals(new int[]{id(ids, b), id(ids, c)}, neighbours(outgoing, id(ids, a))));
+
+        Csr both = Csr.build(graphDb(), Direction.BOTH, ids);
+        assertEquals(2, both.degree(id(ids, c)));
+        assertEquals(incoming.targets.length * 2, both.targets.length);
+    }
+
+    private static int id(IdMapper ids, Node node) {
+        return ids.toDense(node.getId());
+    }
+
+    private static int[] neighbours(Csr csr, int node) {
+        return Arrays.copyOfRange(csr.targets, csr.offsets[node], csr.offsets[node + 1]);
+    }
+}
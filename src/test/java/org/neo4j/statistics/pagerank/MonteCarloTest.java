@@ -0,0 +1,112 @@
+package org.neo4j.statistics.pagerank;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MonteCarloTest {
+    private static final double DAMPING = 0.85;
+
+    private ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @After
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testEstimatesPowerIterationRanks() throws Exception {
+        Random random = new Random(7);
+        int nodes = 50;
+        int[][] edges = new int[200][];
+        for (int i = 0; i < edges.length; i++) {
+            edges[i] = new int[]{random.nextInt(nodes), random.nextInt(nodes / 2)};
+        }
+        double[] expected = new PowerIteration(PowerIterationTest.incoming(nodes, edges), DAMPING, executor).run(1e-12, 1000);
+
+        MonteCarlo monteCarlo = new MonteCarlo(outgoing(nodes, edges), DAMPING, executor, 4, 1);
+        monteCarlo.run(2000);
+        assertEquals(nodes * 2000L, monteCarlo.walks());
+        double[] ranks = monteCarlo.ranks();
+        double total = 0;
+        for (int node = 0; node < nodes; node++) {
+            double bound = monteCarlo.errorBound(node);
+            assertTrue("Rank of " + node + " " + ranks[node] + " too far from " + expected[node] + ", bound " + bound,
+                    Math.abs(ranks[node] - expected[node]) <= bound);
+            assertEquals(ranks[node], monteCarlo.get(node), 0.0);
+            total += ranks[node];
+        }
+        assertEquals(1.0, total, 1e-9);
+        assertTrue(monteCarlo.maxErrorBound() >= monteCarlo.errorBound(0));
+    }
+
+    @Test
+    public void testSameSeedGivesSameRanks() throws Exception {
+        Csr outgoing = outgoing(4, new int[][]{{0, 1}, {1, 2}, {2, 0}, {3, 0}});
+        MonteCarlo first = new MonteCarlo(outgoing, DAMPING, executor, 2, 42);
+        first.run(100);
+        MonteCarlo second = new MonteCarlo(outgoing, DAMPING, executor, 2, 42);
+        second.run(100);
+        assertTrue(Arrays.equals(first.ranks(), second.ranks()));
+    }
+
+    @Test
+    public void testStopsEarly() throws Exception {
+        Csr outgoing = outgoing(2, new int[][]{{0, 1}, {1, 0}});
+        MonteCarlo monteCarlo = new MonteCarlo(outgoing, DAMPING, executor, 2, 42);
+        monteCarlo.stop();
+        monteCarlo.run(1000);
+        assertEquals(0, monteCarlo.walks());
+        assertEquals(1.0, monteCarlo.errorBound(0), 0.0);
+    }
+
+    @Test
+    public void testNodeTallyKeepsColumnsWhileGrowingAndClears() {
+        MonteCarlo.NodeTally tally = new MonteCarlo.NodeTally(2, 2);
+        for (int round = 0; round < 3; round++) {
+            for (int node = 0; node < 1000; node++) {
+                int index = tally.add(node * 7919);
+                tally.values[index] += node;
+                tally.values[index + 1] += 2 * node;
+                index = tally.add(node * 7919);
+                tally.values[index]++;
+            }
+            assertEquals(1000, tally.size());
+            for (int i = 0; i < tally.size(); i++) {
+                long node = tally.node(i) / 7919;
+                assertEquals(node + 1, tally.value(i, 0));
+                assertEquals(2 * node, tally.value(i, 1));
+            }
+            tally.clear();
+            assertEquals(0, tally.size());
+        }
+    }
+
+    static Csr outgoing(int nodes, int[][] edges) {
+        int[] outDegree = new int[nodes];
+        int[] offsets = new int[nodes + 1];
+        for (int[] edge : edges) {
+            outDegree[edge[0]]++;
+            offsets[edge[0] + 1]++;
+        }
+        for (int node = 0; node < nodes; node++) {
+            offsets[node + 1] += offsets[node];
+        }
+        int[] cursor = Arrays.copyOf(offsets, nodes);
+        int[] targets = new int[edges.length];
+        for (int[] edge : edges) {
+            targets[cursor[edge[0]]++] = edge[1];
+        }
+        for (int node = 0; node < nodes; node++) {
+            Arrays.sort(targets, offsets[node], offsets[node + 1]);
+        }
+        return new Csr(offsets, targets, outDegree);
+    }
+}
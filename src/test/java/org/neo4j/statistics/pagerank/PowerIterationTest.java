@@ -0,0 +1,126 @@
+package org.neo4j.statistics.pagerank;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PowerIterationTest {
+    private static final double DAMPING = 0.85;
+
+    private ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @After
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testCycleIsUniform() throws Exception {
+        Csr incoming = incoming(3, new int[][]{{0, 1}, {1, 2}, {2, 0}});
+        double[] ranks = new PowerIteration(incoming, DAMPING, executor).run(1e-12, 100);
+        for (double rank : ranks) {
+            assertEquals(1.0 / 3, rank, 1e-9);
+        }
+    }
+
+    @Test
+    public void testMatchesReferenceWithDanglingNodes() throws Exception {
+        int[][] edges = {{0, 1}, {0, 2}, {1, 2}, {3, 0}, {3, 2}};
+        Csr incoming = incoming(4, edges);
+        PowerIteration iteration = new PowerIteration(incoming, DAMPING, executor);
+        double[] ranks = iteration.run(1e-12, 1000);
+
+        double[] expected = reference(4, edges, 1000);
+        double total = 0;
+        for (int node = 0; node < ranks.length; node++) {
+            assertEquals(expected[node], ranks[node], 1e-9);
+            total += ranks[node];
+        }
+        assertEquals(1.0, total, 1e-9);
+        assertTrue("Should converge early.", iteration.iterations() < 1000);
+        assertTrue("Should converge below tolerance.", iteration.delta() < 1e-12);
+    }
+
+    @Test
+    public void testFloatRanksStayCloseToDoubles() throws Exception {
+        Random random = new Random(42);
+        int nodes = 1000;
+        int[][] edges = new int[5000][];
+        for (int i = 0; i < edges.length; i++) {
+            edges[i] = new int[]{random.nextInt(nodes), random.nextInt(nodes)};
+        }
+        Csr incoming = incoming(nodes, edges);
+        double[] doubles = new PowerIteration(incoming, DAMPING, executor, false).run(PR.TOLERANCE, PR.MAX_ITERATIONS);
+        PowerIteration floatIteration = new PowerIteration(incoming, DAMPING, executor, true);
+        double[] floats = floatIteration.run(PR.TOLERANCE, PR.MAX_ITERATIONS);
+        assertTrue("Float ranks should converge.", floatIteration.iterations() < PR.MAX_ITERATIONS);
+        assertTrue(floatIteration.delta() < PowerIteration.FLOAT_TOLERANCE);
+        for (int node = 0; node < nodes; node++) {
+            assertEquals(doubles[node], floats[node], doubles[node] * 1e-4);
+        }
+    }
+
+    @Test
+    public void testRanksDoNotDependOnThreadCount() throws Exception {
+        Random random = new Random(42);
+        int nodes = PowerIteration.PARTITION_SIZE * 5 + 123;
+        int[][] edges = new int[nodes * 5][];
+        for (int i = 0; i < edges.length; i++) {
+            edges[i] = new int[]{random.nextInt(nodes), random.nextInt(nodes / 10)};
+        }
+        Csr incoming = incoming(nodes, edges);
+        ExecutorService single = Executors.newSingleThreadExecutor();
+        try {
+            double[] sequential = new PowerIteration(incoming, DAMPING, single).run(1e-10, 50);
+            double[] parallel = new PowerIteration(incoming, DAMPING, executor).run(1e-10, 50);
+            assertTrue("Ranks differ between thread counts.", Arrays.equals(sequential, parallel));
+        } finally {
+            single.shutdown();
+        }
+    }
+
+    static Csr incoming(int nodes, int[][] edges) {
+        int[] outDegree = new int[nodes];
+        int[] offsets = new int[nodes + 1];
+        for (int[] edge : edges) {
+            outDegree[edge[0]]++;
+            offsets[edge[1] + 1]++;
+        }
+        for (int node = 0; node < nodes; node++) {
+            offsets[node + 1] += offsets[node];
+        }
+        int[] cursor = Arrays.copyOf(offsets, nodes);
+        int[] targets = new int[edges.length];
+        for (int[] edge : edges) {
+            targets[cursor[edge[1]]++] = edge[0];
+        }
+        return new Csr(offsets, targets, outDegree);
+    }
+
+    private static double[] reference(int nodes, int[][] edges, int iterations) {
+        int[] outDegree = new int[nodes];
+        for (int[] edge : edges) outDegree[edge[0]]++;
+        double[] ranks = new double[nodes];
+        Arrays.fill(ranks, 1.0 / nodes);
+        for (int i = 0; i < iterations; i++) {
+            double dangling = 0;
+            for (int node = 0; node < nodes; node++) {
+                if (outDegree[node] == 0) dangling += ranks[node];
+            }
+            double[] next = new double[nodes];
+            Arrays.fill(next, (1 - DAMPING) / nodes + DAMPING * dangling / nodes);
+            for (int[] edge : edges) {
+                next[edge[1]] += DAMPING * ranks[edge[0]] / outDegree[edge[0]];
+            }
+            ranks = next;
+        }
+        return ranks;
+    }
+}
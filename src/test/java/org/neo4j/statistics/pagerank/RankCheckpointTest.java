@@ -0,0 +1,142 @@
+package org.neo4j.statistics.pagerank;
+
+import org.junit.After;
+import org.junit.Test;
+import org.neo4j.graphdb.DynamicRelationshipType;
+import org.neo4j.graphdb.Node;
+import org.neo4j.statistics.Neo4jTestCase;
+import org.neo4j.tooling.GlobalGraphOperations;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RankCheckpointTest extends Neo4jTestCase {
+    private static final double DAMPING = 0.85;
+
+    private ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @After
+    public void shutdownExecutor() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testKeepsRanksForSameSnapshotOnly() throws Exception {
+        File file = checkpointFile("roundtrip.ckpt");
+        RankCheckpoint checkpoint = RankCheckpoint.open(file, 42, 3);
+        assertFalse(checkpoint.hasRanks());
+        RankVector ranks = RankVector.create(3, false);
+        ranks.set(0, 0.5);
+        ranks.set(1, 0.25);
+        ranks.set(2, 0.25);
+        checkpoint.save(7, 0.001, ranks);
+        ranks.set(0, 0.1);
+        checkpoint.save(8, 0.0001, ranks);
+
+        RankCheckpoint reopened = RankCheckpoint.open(file, 42, 3);
+        assertTrue(reopened.hasRanks());
+        assertEquals(8, reopened.iterations());
+        assertEquals(0.0001, reopened.delta(), 0.0);
+        RankVector loaded = RankVector.create(3, false);
+        reopened.load(loaded);
+        assertTrue(Arrays.equals(new double[]{0.1, 0.25, 0.25}, loaded.toArray()));
+
+        assertFalse(RankCheckpoint.open(file, 43, 3).hasRanks());
+    }
+
+    @Test
+    public void testResumedRunMatchesUninterruptedRun() throws Exception {
+        Random random = new Random(11);
+        int nodes = 500;
+        int[][] edges = new int[3000][];
+        for (int i = 0; i < edges.length; i++) {
+            edges[i] = new int[]{random.nextInt(nodes), random.nextInt(nodes)};
+        }
+        Csr incoming = PowerIterationTest.incoming(nodes, edges);
+        double[] uninterrupted = new PowerIteration(incoming, DAMPING, executor).run(0, 20);
+
+        File file = checkpointFile("resume.ckpt");
+        RankCheckpoint checkpoint = RankCheckpoint.open(file, 1, nodes);
+        PowerIteration first = new PowerIteration(incoming, DAMPING, executor);
+        first.checkpointTo(checkpoint, 0);
+        first.run(0, 8);
+
+        PowerIteration resumed = new PowerIteration(incoming, DAMPING, executor);
+        assertTrue(resumed.resumeFrom(RankCheckpoint.open(file, 1, nodes)));
+        assertEquals(8, resumed.iterations());
+        assertTrue("Resumed ranks differ.", Arrays.equals(uninterrupted, resumed.run(0, 20)));
+    }
+
+    @Test
+    public void testWritesRanksBackAsProperties() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            graphDb().createNode();
+        }
+        restartTx();
+
+        PR pr = new PR(graphDb(), 0, false);
+        try {
+            try {
+                pr.writeBack("rank");
+                fail("Wrote ranks before the run finished.");
+            } catch (IllegalStateException e) {
+                // expected
+            }
+            pr.start();
+            pr.awaitDone();
+            assertTrue(pr.isCompleted());
+            assertTrue(pr.status(), pr.status().startsWith("iterations="));
+            assertFalse(pr.status(), pr.status().startsWith("iterations=0 "));
+            long written = pr.writeBack("rank");
+            restartTx();
+            long nodes = 0;
+            for (Node node : GlobalGraphOperations.at(graphDb()).getAllNodes()) {
+                assertEquals(pr.get(node.getId()), (Double) node.getProperty("rank"), 0.0);
+                nodes++;
+            }
+            assertEquals(nodes, written);
+        } finally {
+            pr.stop();
+        }
+    }
+
+    @Test
+    public void testWritesFloatRanksBack() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            graphDb().createNode().createRelationshipTo(graphDb().createNode(), DynamicRelationshipType.withName("LINKS"));
+        }
+        restartTx();
+
+        PR pr = new PR(graphDb(), 0, true);
+        try {
+            pr.start();
+            pr.awaitDone();
+            pr.writeBack("floatRank");
+            restartTx();
+            for (Node node : GlobalGraphOperations.at(graphDb()).getAllNodes()) {
+                assertEquals(pr.get(node.getId()), (Double) node.getProperty("floatRank"), 0.0);
+            }
+        } finally {
+            pr.stop();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsFloatRanksForMonteCarlo() throws Exception {
+        new PR(graphDb(), 10, true);
+    }
+
+    private File checkpointFile(String name) {
+        File file = new File(getBasePath(), name);
+        file.delete();
+        return file;
+    }
+}
@@ -0,0 +1,71 @@
+package org.neo4j.statistics.processors;
+
+import org.junit.Test;
+import org.neo4j.graphdb.DynamicRelationshipType;
+import org.neo4j.graphdb.Node;
+import org.neo4j.statistics.LinearBucketing;
+import org.neo4j.statistics.Neo4jTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class RelationshipsPerNodeHistogramRangesTest extends Neo4jTestCase
+{
+    private static final DynamicRelationshipType REL_TYPE = DynamicRelationshipType.withName( "TEST" );
+
+    @Test
+    public void testParallelScanOverSeveralRangesMatchesSequentialScan()
+    {
+        List<Node> nodes = new ArrayList<Node>();
+        for ( int i = 0; i < 100; i++ )
+        {
+            nodes.add( graphDb().createNode() );
+        }
+        Random random = new Random( 17 );
+        for ( int i = 0; i < 400; i++ )
+        {
+            nodes.get( random.nextInt( nodes.size() ) ).createRelationshipTo( nodes.get( random.nextInt( nodes.size() ) ), REL_TYPE );
+        }
+        // Leave holes so that some ranges start and end on ids that are not in use
+        for ( int i = 0; i < 100; i += 9 )
+        {
+            Node node = graphDb().createNode();
+            nodes.get( i ).createRelationshipTo( node, REL_TYPE ).delete();
+            node.delete();
+        }
+        restartTx();
+
+        RelationshipsPerNodeHistogram sequential = new RelationshipsPerNodeHistogram( graphDb(), System.out, 2 );
+        sequential.run();
+        for ( long rangeSize : new long[] { 1, 7, 32 } )
+        {
+            RelationshipsPerNodeHistogram parallel = new RelationshipsPerNodeHistogram( graphDb(), System.out,
+                new LinearBucketing( 2 ), 4, rangeSize );
+            parallel.run();
+            assertEquals( "Wrong result with range size " + rangeSize, sequential.getCounts(), parallel.getCounts() );
+            assertEquals( "Wrong node count.", sequential.getNodeCount(), parallel.getNodeCount() );
+            assertEquals( "Wrong rel count.", sequential.getRelCount(), parallel.getRelCount() );
+            assertEquals( "Wrong progress.", parallel.getProgress().getTotal(), parallel.getProgress().getProcessed() );
+        }
+    }
+
+    @Test
+    public void testAbortedParallelScanOnlyReportsScannedProgress()
+    {
+        for ( int i = 0; i < 50; i++ )
+        {
+            graphDb().createNode();
+        }
+        restartTx();
+
+        RelationshipsPerNodeHistogram parallel = new RelationshipsPerNodeHistogram( graphDb(), System.out,
+            new LinearBucketing( 2 ), 4, 7 );
+        parallel.abort();
+        parallel.run();
+        assertEquals( "Wrong node count.", 0, parallel.getNodeCount() );
+        assertEquals( "Wrong progress.", 0, parallel.getProgress().getProcessed() );
+    }
+}
@@ -0,0 +1,106 @@
+package org.neo4j.statistics.snapshot;
+
+import org.junit.Test;
+import org.neo4j.statistics.KeyedCounter;
+import org.neo4j.statistics.LinearBucketing;
+import org.neo4j.statistics.LongHistogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class StatisticsSnapshotTest
+{
+    private static final File BASE_PATH = new File( "target/var" );
+
+    @Test
+    public void testSavesAndLoadsAllSections() throws IOException
+    {
+        StatisticsSnapshot snapshot = weekly( 1000, 3 );
+        File file = file( "roundtrip.stats" );
+        snapshot.save( file );
+
+        StatisticsSnapshot loaded = StatisticsSnapshot.load( file );
+        assertEquals( snapshot, loaded );
+        assertEquals( "histo", loaded.getName() );
+        assertEquals( Long.valueOf( 3 ), loaded.getSection( "types" ).get( "LIKES" ) );
+        assertEquals( Long.valueOf( 2 ), loaded.getSection( "degrees" ).get( "11" ) );
+        assertEquals( Long.valueOf( 1L << 40 ), loaded.getSection( "totals" ).get( "bytes" ) );
+    }
+
+    @Test
+    public void testDiffListsOnlyChangedCounts() throws IOException
+    {
+        File before = file( "before.stats" );
+        File after = file( "after.stats" );
+        weekly( 1000, 3 ).save( before );
+        weekly( 2000, 5 ).save( after );
+
+        SnapshotDiff diff = new SnapshotDiff( StatisticsSnapshot.load( before ), StatisticsSnapshot.load( after ) );
+        List<SnapshotDiff.Change> changes = diff.getChanges();
+        assertEquals( 6, changes.size() );
+        assertEquals( "types", changes.get( 0 ).getSection() );
+        assertEquals( "LIKES", changes.get( 0 ).getKey() );
+        assertEquals( 2, changes.get( 0 ).getDelta() );
+        assertEquals( "FOLLOWS", changes.get( 1 ).getKey() );
+        assertEquals( 0, changes.get( 1 ).getBefore() );
+        assertEquals( "degrees", changes.get( 2 ).getSection() );
+        assertEquals( "total samples", changes.get( 2 ).getKey() );
+        assertEquals( "total counts", changes.get( 3 ).getKey() );
+        assertEquals( "21", changes.get( 4 ).getKey() );
+        assertEquals( "totals", changes.get( 5 ).getSection() );
+        assertEquals( 1000, changes.get( 5 ).getDelta() );
+        assertEquals( 4, diff.getUnchanged() );
+    }
+
+    @Test
+    public void testRejectsOtherFiles() throws IOException
+    {
+        File file = file( "other.stats" );
+        RandomAccessFile raf = new RandomAccessFile( file, "rw" );
+        raf.writeLong( 42 );
+        raf.writeLong( 42 );
+        raf.writeLong( 42 );
+        raf.close();
+        try
+        {
+            StatisticsSnapshot.load( file );
+            fail( "Loaded a file that is not a snapshot." );
+        }
+        catch ( IOException e )
+        {
+            // expected
+        }
+    }
+
+    private StatisticsSnapshot weekly( long relationships, long likes )
+    {
+        StatisticsSnapshot snapshot = new StatisticsSnapshot( "histo", relationships );
+        KeyedCounter<String> types = new KeyedCounter<String>();
+        types.incForKey( "KNOWS", 7 );
+        types.incForKey( "LIKES", likes );
+        if ( likes > 3 ) types.incForKey( "FOLLOWS" );
+        snapshot.put( "types", types );
+        LongHistogram degrees = new LongHistogram( new LinearBucketing( 10 ), false );
+        degrees.recordCount( 3 );
+        degrees.recordCount( 12 );
+        degrees.recordCount( 15 );
+        if ( likes > 3 ) degrees.recordCount( 25 );
+        snapshot.put( "degrees", degrees );
+        snapshot.put( "totals", "relationships", relationships );
+        snapshot.put( "totals", "bytes", 1L << 40 );
+        return snapshot;
+    }
+
+    private File file( String name )
+    {
+        BASE_PATH.mkdirs();
+        File file = new File( BASE_PATH, name );
+        file.delete();
+        return file;
+    }
+}